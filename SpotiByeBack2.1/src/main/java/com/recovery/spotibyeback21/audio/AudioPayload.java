@@ -0,0 +1,134 @@
+package com.recovery.spotibyeback21.audio;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Decoded audio bytes spooled to a temporary file.
+ *
+ * Lets upload paths hold a handle to the audio instead of a base64 String that
+ * is several times its size on the heap. A payload that owns its file removes
+ * it on close.
+ */
+@Slf4j
+public final class AudioPayload implements Closeable {
+
+    private static final int ENCODE_CHUNK = 3 * 16 * 1024;
+
+    private final String dataUrlHeader;
+    private final Path file;
+    private final boolean owned;
+    private volatile boolean closed;
+
+    private AudioPayload(String dataUrlHeader, Path file, boolean owned) {
+        this.dataUrlHeader = dataUrlHeader;
+        this.file = file;
+        this.owned = owned;
+    }
+
+    /**
+     * Create an empty payload
+     *
+     * @param dataUrlHeader data URL prefix without the trailing comma, e.g. "data:audio/mpeg;base64"
+     */
+    public static AudioPayload allocate(String dataUrlHeader) throws IOException {
+        return new AudioPayload(dataUrlHeader, Files.createTempFile("spotibye-audio-", ".bin"), true);
+    }
+
+    /**
+     * Use an existing file as payload; the file stays in place on close and remains the caller's to delete
+     */
+    public static AudioPayload borrow(String dataUrlHeader, Path file) {
+        return new AudioPayload(dataUrlHeader, file, false);
+    }
+
+    public OutputStream openOutput() throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+    }
+
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getDataUrlHeader() {
+        return dataUrlHeader;
+    }
+
+    public String getMediaType() {
+        int end = dataUrlHeader.indexOf(';');
+        return dataUrlHeader.substring("data:".length(), end < 0 ? dataUrlHeader.length() : end);
+    }
+
+    public long getSize() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Re-encode the payload as a data URL, in the form stored in Track.audioUrl.
+     * Builds the Latin-1 bytes once and wraps them, so the peak cost is about
+     * twice the encoded size instead of the UTF-16 buffers Jackson would grow.
+     */
+    public String toDataUrl() {
+        long size = getSize();
+        long encodedLength = 4 * ((size + 2) / 3);
+        byte[] prefix = (dataUrlHeader + ",").getBytes(StandardCharsets.ISO_8859_1);
+        if (prefix.length + encodedLength > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Audio payload too large: " + size + " bytes");
+        }
+
+        byte[] result = new byte[(int) (prefix.length + encodedLength)];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        int position = prefix.length;
+
+        Base64.Encoder encoder = Base64.getEncoder();
+        byte[] chunk = new byte[ENCODE_CHUNK];
+        byte[] encoded = new byte[ENCODE_CHUNK / 3 * 4];
+        try (InputStream in = openStream()) {
+            int filled;
+            while ((filled = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+                byte[] source = filled == chunk.length ? chunk : Arrays.copyOf(chunk, filled);
+                int written = encoder.encode(source, encoded);
+                System.arraycopy(encoded, 0, result, position, written);
+                position += written;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(result, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!owned) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete audio spool file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.recovery.spotibyeback21.audio;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Wraps a JSON request body and diverts the base64 part of the first
+ * {@code "audioUrl": "data:...;base64,..."} value into an {@link AudioPayload},
+ * decoding it on the fly.
+ *
+ * Everything else passes through untouched, so Jackson only ever sees the data URL
+ * header (e.g. {@code "data:audio/mpeg;base64,"}) as the audioUrl value and never
+ * buffers the audio as text. Values that are not base64 data URLs are left as-is.
+ */
+public class AudioUrlExtractingInputStream extends FilterInputStream {
+
+    private static final byte[] KEY = "\"audioUrl\"".getBytes(StandardCharsets.US_ASCII);
+    private static final String BASE64_MARKER = ";base64";
+    private static final int MAX_HEADER = 256;
+    private static final int DECODE_CHUNK = 4 * 16 * 1024;
+
+    private enum State { KEY, COLON, OPEN_QUOTE, HEADER, BASE64, DONE }
+
+    private State state = State.KEY;
+    private int keyMatched;
+    private final StringBuilder header = new StringBuilder();
+    private boolean escaped;
+
+    private AudioPayload payload;
+    private OutputStream payloadOut;
+    private final byte[] pending = new byte[DECODE_CHUNK];
+    private final byte[] decoded = new byte[DECODE_CHUNK / 4 * 3];
+    private int pendingLength;
+
+    public AudioUrlExtractingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * The extracted audio, or null if the body carried no base64 data URL
+     */
+    public AudioPayload getPayload() {
+        return payload;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            int n = in.read(b, off, len);
+            if (n < 0) {
+                if (state == State.BASE64) {
+                    throw new IOException("Unterminated audioUrl value");
+                }
+                return -1;
+            }
+            if (state == State.DONE) {
+                return n;
+            }
+
+            int out = off;
+            for (int i = off; i < off + n; i++) {
+                byte c = b[i];
+                if (state == State.BASE64) {
+                    if (!divert(c)) {
+                        continue;
+                    }
+                }
+                b[out++] = c;
+                observe(c);
+            }
+            if (out > off) {
+                return out - off;
+            }
+            // The whole chunk was audio; keep reading so callers never see a zero-length read
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (payloadOut != null) {
+                payloadOut.close();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * Feed one byte of the base64 value to the decoder.
+     *
+     * @return true when the byte is the closing quote and must be passed through
+     */
+    private boolean divert(byte c) throws IOException {
+        if (escaped) {
+            escaped = false;
+            if (c != '/') {
+                throw new IOException("Unsupported escape sequence in audioUrl value");
+            }
+            append(c);
+            return false;
+        }
+        if (c == '\\') {
+            escaped = true;
+            return false;
+        }
+        if (c == '"') {
+            finishPayload();
+            state = State.DONE;
+            return true;
+        }
+        append(c);
+        return false;
+    }
+
+    private void observe(byte c) throws IOException {
+        switch (state) {
+            case KEY -> {
+                if (c == KEY[keyMatched]) {
+                    keyMatched++;
+                    if (keyMatched == KEY.length) {
+                        keyMatched = 0;
+                        state = State.COLON;
+                    }
+                } else {
+                    keyMatched = c == KEY[0] ? 1 : 0;
+                }
+            }
+            case COLON -> {
+                if (c == ':') {
+                    state = State.OPEN_QUOTE;
+                } else if (!isWhitespace(c)) {
+                    restartKey(c);
+                }
+            }
+            case OPEN_QUOTE -> {
+                if (c == '"') {
+                    header.setLength(0);
+                    state = State.HEADER;
+                } else if (!isWhitespace(c)) {
+                    restartKey(c);
+                }
+            }
+            case HEADER -> {
+                if (c == ',') {
+                    String value = header.toString();
+                    if (value.startsWith("data:") && value.endsWith(BASE64_MARKER)) {
+                        payload = AudioPayload.allocate(value);
+                        payloadOut = payload.openOutput();
+                        state = State.BASE64;
+                    } else {
+                        state = State.DONE;
+                    }
+                } else if (c == '"' || c == '\\' || header.length() >= MAX_HEADER) {
+                    state = State.DONE;
+                } else {
+                    header.append((char) c);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void restartKey(byte c) {
+        state = State.KEY;
+        keyMatched = c == KEY[0] ? 1 : 0;
+    }
+
+    private void append(byte c) throws IOException {
+        if (isWhitespace(c)) {
+            return;
+        }
+        pending[pendingLength++] = c;
+        if (pendingLength == pending.length) {
+            int written = decode(pending, decoded);
+            payloadOut.write(decoded, 0, written);
+            pendingLength = 0;
+        }
+    }
+
+    private void finishPayload() throws IOException {
+        if (pendingLength > 0) {
+            byte[] tail = decode(Arrays.copyOf(pending, pendingLength));
+            payloadOut.write(tail);
+            pendingLength = 0;
+        }
+        payloadOut.close();
+        payloadOut = null;
+    }
+
+    private static int decode(byte[] source, byte[] target) throws IOException {
+        try {
+            return Base64.getDecoder().decode(source, target);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid base64 in audioUrl value", e);
+        }
+    }
+
+    private static byte[] decode(byte[] source) throws IOException {
+        try {
+            return Base64.getDecoder().decode(source);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid base64 in audioUrl value", e);
+        }
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,122 @@
+package com.recovery.spotibyeback21.audio;
+
+import org.apache.catalina.connector.CoyoteOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Decoded audio of a track at a given Track.version.
+ *
+ * The bytes are held in a read-only buffer, off-heap when it is meant for the
+ * {@link com.recovery.spotibyeback21.cache.AudioCache}. Readers work on duplicates,
+ * so one buffer can be written to many responses at once; its memory is released
+ * once the cache and every response writing it have let go of it.
+ */
+public record DecodedAudio(String mediaType, ByteBuffer data, long version) {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64";
+    private static final String DEFAULT_MEDIA_TYPE = "application/octet-stream";
+    private static final int DECODE_CHUNK = 4 * 16 * 1024;
+
+    public long size() {
+        return data.capacity();
+    }
+
+    /**
+     * Decoded size of a base64 data URL, or -1 if the value is not one
+     */
+    public static long decodedSize(String dataUrl) {
+        int comma = base64Start(dataUrl);
+        if (comma < 0) {
+            return -1;
+        }
+        int end = dataUrl.length();
+        int padding = 0;
+        while (padding < 2 && end > comma + 1 && dataUrl.charAt(end - 1) == '=') {
+            end--;
+            padding++;
+        }
+        int length = end - comma - 1;
+        int remainder = length % 4;
+        return (long) length / 4 * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    /**
+     * Decode a base64 data URL, as stored in Track.audioUrl
+     *
+     * @param direct whether to decode into off-heap memory
+     * @return the decoded audio, or null if the value is not a valid base64 data URL
+     */
+    public static DecodedAudio fromDataUrl(String dataUrl, long version, boolean direct) {
+        long size = decodedSize(dataUrl);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        int comma = base64Start(dataUrl);
+        ByteBuffer target = direct ? ByteBuffer.allocateDirect((int) size) : ByteBuffer.allocate((int) size);
+
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] chunk = new byte[DECODE_CHUNK];
+        byte[] decoded = new byte[DECODE_CHUNK / 4 * 3];
+        int end = dataUrl.length();
+        try {
+            // Chunks are a multiple of four characters, so only the last one can carry padding
+            for (int position = comma + 1; position < end; position += DECODE_CHUNK) {
+                int length = Math.min(DECODE_CHUNK, end - position);
+                for (int i = 0; i < length; i++) {
+                    chunk[i] = (byte) dataUrl.charAt(position + i);
+                }
+                byte[] source = length == chunk.length ? chunk : Arrays.copyOf(chunk, length);
+                target.put(decoded, 0, decoder.decode(source, decoded));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new DecodedAudio(mediaType(dataUrl, comma), target.flip().asReadOnlyBuffer(), version);
+    }
+
+    /**
+     * Write a byte range of the audio to a response stream.
+     * Tomcat's stream takes the buffer directly; other streams are fed through
+     * a small transfer buffer, never a copy of the whole payload.
+     */
+    public void writeTo(OutputStream out, long start, long length) throws IOException {
+        ByteBuffer range = data.duplicate();
+        range.position((int) start).limit((int) (start + length));
+        if (out instanceof CoyoteOutputStream coyote) {
+            coyote.write(range);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (range.hasRemaining()) {
+            channel.write(range);
+        }
+    }
+
+    private static int base64Start(String dataUrl) {
+        if (dataUrl == null || !dataUrl.startsWith(DATA_PREFIX)) {
+            return -1;
+        }
+        int comma = dataUrl.indexOf(',');
+        if (comma < 0 || !dataUrl.startsWith(BASE64_MARKER, comma - BASE64_MARKER.length())) {
+            return -1;
+        }
+        return comma;
+    }
+
+    private static String mediaType(String dataUrl, int comma) {
+        int end = dataUrl.indexOf(';');
+        if (end < 0 || end > comma) {
+            end = comma;
+        }
+        String mediaType = dataUrl.substring(DATA_PREFIX.length(), end);
+        return mediaType.isEmpty() ? DEFAULT_MEDIA_TYPE : mediaType;
+    }
+}
@@ -0,0 +1,67 @@
+package com.recovery.spotibyeback21.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Newest version announced per track, remembered for a limited time.
+ *
+ * A reader that loaded a track before an update was announced must not put the
+ * old state back into a cache. That race lasts no longer than one read, so
+ * announcements older than the TTL are swept and the map holds recent writes
+ * only, not every track ever changed.
+ */
+class AnnouncedVersions {
+
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private final Map<Long, Announcement> versions = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweep;
+
+    AnnouncedVersions() {
+        this(DEFAULT_TTL, System::nanoTime);
+    }
+
+    AnnouncedVersions(Duration ttl, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + ttlNanos);
+    }
+
+    void announce(Long id, long version) {
+        long now = clock.getAsLong();
+        versions.merge(id, new Announcement(version, now),
+                (previous, next) -> new Announcement(Math.max(previous.version, next.version), now));
+        sweep(now);
+    }
+
+    /**
+     * Whether a version newer than the given one has been announced for the track
+     */
+    boolean isSuperseded(Long id, long version) {
+        Announcement announcement = versions.get(id);
+        return announcement != null && announcement.version > version;
+    }
+
+    int size() {
+        return versions.size();
+    }
+
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        // One caller per TTL period pays for the sweep
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + ttlNanos)) {
+            return;
+        }
+        long cutoff = now - ttlNanos;
+        versions.values().removeIf(announcement -> announcement.at - cutoff < 0);
+    }
+
+    private record Announcement(long version, long at) {
+    }
+}
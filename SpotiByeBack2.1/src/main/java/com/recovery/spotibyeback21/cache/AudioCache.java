@@ -0,0 +1,215 @@
+package com.recovery.spotibyeback21.cache;
+
+import com.recovery.spotibyeback21.audio.DecodedAudio;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap cache of decoded track audio, bounded by bytes.
+ *
+ * Entries are direct buffers, so megabytes of audio per track neither count
+ * against the heap nor get copied by the collector. Admission is TinyLFU: when a
+ * new entry only fits by evicting, it is admitted only if it was requested more
+ * often than every least-recently-used entry it would push out, as estimated by a
+ * {@link FrequencySketch}. A burst of one-off plays therefore cannot flush the
+ * tracks that are played all day. Invalidation follows {@link TrackCache}: by
+ * version, locally after commit and from other instances via the {@link InvalidationBus}.
+ */
+@Component
+@Slf4j
+public class AudioCache implements MetricsSource {
+
+    private static final int SKETCH_WIDTH = 1 << 16;
+
+    private final InvalidationBus invalidationBus;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    private final LinkedHashMap<Long, DecodedAudio> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AnnouncedVersions announcedVersions = new AnnouncedVersions();
+    private final FrequencySketch sketch = new FrequencySketch(SKETCH_WIDTH);
+    private long residentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public AudioCache(
+            InvalidationBus invalidationBus,
+            @Value("${spotibye.audio-cache.max-bytes:268435456}") long maxBytes,
+            @Value("${spotibye.audio-cache.max-entry-bytes:33554432}") long maxEntryBytes) {
+        this.invalidationBus = invalidationBus;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(this::onNotices);
+    }
+
+    /**
+     * Get the cached audio of a track; every call counts as an access for admission
+     */
+    public DecodedAudio get(Long id) {
+        sketch.increment(id);
+        synchronized (entries) {
+            DecodedAudio audio = entries.get(id);
+            if (audio == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return audio;
+        }
+    }
+
+    /**
+     * Whether audio of this size would be admitted right now. Lets callers decode
+     * one-off reads onto the heap instead of allocating off-heap memory for nothing.
+     */
+    public boolean wouldAdmit(Long id, long size) {
+        if (size > maxEntryBytes) {
+            return false;
+        }
+        synchronized (entries) {
+            return admits(id, size);
+        }
+    }
+
+    /**
+     * Cache the audio of a track unless admission turns it down
+     *
+     * @return whether the audio was cached
+     */
+    public boolean put(Long id, DecodedAudio audio) {
+        if (announcedVersions.isSuperseded(id, audio.version())) {
+            return false;
+        }
+        long size = audio.size();
+        if (size > maxEntryBytes || !audio.data().isDirect()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        synchronized (entries) {
+            // An older version is superseded whether or not the new one gets in
+            DecodedAudio previous = entries.remove(id);
+            if (previous != null) {
+                residentBytes -= previous.size();
+            }
+            if (!admits(id, size)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            Iterator<DecodedAudio> eldest = entries.values().iterator();
+            while (residentBytes + size > maxBytes && eldest.hasNext()) {
+                residentBytes -= eldest.next().size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+            entries.put(id, audio);
+            residentBytes += size;
+        }
+        admitted.incrementAndGet();
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackChanged(TrackChangedEvent event) {
+        // TrackCache broadcasts the notice; this only drops the local entry right away
+        invalidate(event.getTrackId(), event.getVersion());
+    }
+
+    void onNotices(List<ChangeNotice> notices) {
+        for (ChangeNotice notice : notices) {
+            if (notice.isEverything()) {
+                clear();
+            } else {
+                invalidate(notice.getTrackId(), notice.getVersion());
+            }
+        }
+    }
+
+    public void invalidate(Long id, long version) {
+        announcedVersions.announce(id, version);
+        synchronized (entries) {
+            DecodedAudio audio = entries.get(id);
+            if (audio == null || audio.version() > version) {
+                return;
+            }
+            entries.remove(id);
+            residentBytes -= audio.size();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            residentBytes = 0;
+        }
+        log.info("Audio cache cleared");
+    }
+
+    @Override
+    public String metricsName() {
+        return "audioCache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+            metrics.put("residentBytes", residentBytes);
+        }
+        metrics.put("maxBytes", maxBytes);
+        long hitCount = hits.get();
+        long requests = hitCount + misses.get();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", requests - hitCount);
+        metrics.put("hitRatio", requests == 0 ? 0.0 : (double) hitCount / requests);
+        metrics.put("admitted", admitted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("announcedVersions", announcedVersions.size());
+        return metrics;
+    }
+
+    /**
+     * TinyLFU check against the entries that would be evicted, oldest first; caller holds the lock
+     */
+    private boolean admits(Long id, long size) {
+        long excess = residentBytes + size - maxBytes;
+        if (excess <= 0) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(id);
+        long freed = 0;
+        for (Map.Entry<Long, DecodedAudio> victim : entries.entrySet()) {
+            if (freed >= excess) {
+                break;
+            }
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            freed += victim.getValue().size();
+        }
+        return freed >= excess;
+    }
+}
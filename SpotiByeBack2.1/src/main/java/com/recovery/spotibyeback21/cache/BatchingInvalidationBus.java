@@ -0,0 +1,71 @@
+package com.recovery.spotibyeback21.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Base for buses that collect notices and send them in batches, keeping only the
+ * newest version per track within a batch.
+ */
+@Slf4j
+public abstract class BatchingInvalidationBus implements InvalidationBus {
+
+    private final ConcurrentLinkedQueue<ChangeNotice> pending = new ConcurrentLinkedQueue<>();
+    private final List<Consumer<List<ChangeNotice>>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ChangeNotice notice) {
+        pending.offer(notice);
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ChangeNotice>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Scheduled(fixedDelayString = "${spotibye.cache.bus-flush-interval-ms:50}")
+    public void flush() {
+        Map<Long, ChangeNotice> latest = new LinkedHashMap<>();
+        boolean everything = false;
+        ChangeNotice notice;
+        while ((notice = pending.poll()) != null) {
+            if (notice.isEverything()) {
+                everything = true;
+            } else {
+                latest.merge(notice.getTrackId(), notice,
+                        (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+            }
+        }
+        if (everything) {
+            send(List.of(ChangeNotice.everything()));
+        } else if (!latest.isEmpty()) {
+            send(new ArrayList<>(latest.values()));
+        }
+    }
+
+    /**
+     * Transmit one batch to all instances
+     */
+    protected abstract void send(List<ChangeNotice> notices);
+
+    /**
+     * Hand a received batch to the local subscribers
+     */
+    protected void deliver(List<ChangeNotice> notices) {
+        for (Consumer<List<ChangeNotice>> subscriber : subscribers) {
+            try {
+                subscriber.accept(notices);
+            } catch (RuntimeException e) {
+                log.error("Invalidation subscriber failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.recovery.spotibyeback21.cache;
+
+import lombok.Value;
+
+/**
+ * Compact "track changed" message exchanged between instances
+ */
+@Value
+public class ChangeNotice {
+
+    // Null means every track: receivers must drop everything they cache
+    Long trackId;
+    long version;
+
+    public static ChangeNotice everything() {
+        return new ChangeNotice(null, Long.MAX_VALUE);
+    }
+
+    public boolean isEverything() {
+        return trackId == null;
+    }
+}
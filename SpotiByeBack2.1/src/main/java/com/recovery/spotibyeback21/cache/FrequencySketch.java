@@ -0,0 +1,69 @@
+package com.recovery.spotibyeback21.cache;
+
+/**
+ * Approximate, ageing access counts for TinyLFU admission.
+ *
+ * A count-min sketch with four rows of saturating counters (0-15). After every
+ * ten increments per column all counters are halved, so tracks that were hot an
+ * hour ago lose their weight against tracks that are hot now. Memory is fixed by
+ * the width, whatever the number of distinct keys.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final byte[] counters;
+    private final int width;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    FrequencySketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.counters = new byte[DEPTH * this.width];
+        this.sampleSize = 10 * this.width;
+    }
+
+    synchronized void increment(long key) {
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(key, row);
+            if (counters[index] < MAX_COUNT) {
+                counters[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    synchronized int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[index(key, row)]);
+        }
+        return frequency;
+    }
+
+    private void halve() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+        }
+        additions /= 2;
+    }
+
+    private int index(long key, int row) {
+        long hash = (key + SEEDS[row]) * SEEDS[row];
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 29;
+        return row * width + ((int) hash & (width - 1));
+    }
+}
@@ -0,0 +1,20 @@
+package com.recovery.spotibyeback21.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Single-JVM bus: batches are delivered straight to local subscribers.
+ * Used for single-instance deployments and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "spotibye.cache.bus", havingValue = "local", matchIfMissing = true)
+public class InProcessInvalidationBus extends BatchingInvalidationBus {
+
+    @Override
+    protected void send(List<ChangeNotice> notices) {
+        deliver(notices);
+    }
+}
@@ -0,0 +1,21 @@
+package com.recovery.spotibyeback21.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts track change notices to every instance so in-process caches can
+ * drop stale entries. Notices must only be published after the change committed.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Queue a notice for broadcast; delivery is batched and asynchronous
+     */
+    void publish(ChangeNotice notice);
+
+    /**
+     * Register a receiver for notice batches, including those published by this instance
+     */
+    void subscribe(Consumer<List<ChangeNotice>> subscriber);
+}
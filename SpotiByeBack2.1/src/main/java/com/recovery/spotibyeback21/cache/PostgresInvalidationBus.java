@@ -0,0 +1,145 @@
+package com.recovery.spotibyeback21.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bus over Postgres LISTEN/NOTIFY.
+ *
+ * Each batch is sent as one or more NOTIFY payloads of the form
+ * {@code <node>;<id>:<version>,<id>:<version>...}, kept under the 8000 byte limit.
+ * A daemon thread holds one pooled connection in LISTEN mode. Notices sent while it
+ * was disconnected are lost, so after a reconnect subscribers are told to drop everything.
+ */
+@Component
+@ConditionalOnProperty(name = "spotibye.cache.bus", havingValue = "postgres")
+@Slf4j
+public class PostgresInvalidationBus extends BatchingInvalidationBus {
+
+    static final String CHANNEL = "spotibye_track_changes";
+    private static final int MAX_PAYLOAD = 7900;
+    private static final int POLL_TIMEOUT_MS = 500;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresInvalidationBus(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.join(POLL_TIMEOUT_MS * 4L);
+    }
+
+    @Override
+    protected void send(List<ChangeNotice> notices) {
+        StringBuilder payload = new StringBuilder(nodeId).append(';');
+        int header = payload.length();
+        for (ChangeNotice notice : notices) {
+            String entry = (notice.isEverything() ? "*" : notice.getTrackId().toString()) + ":" + notice.getVersion();
+            if (payload.length() + entry.length() + 1 > MAX_PAYLOAD) {
+                notify(payload.toString());
+                payload.setLength(header);
+            }
+            if (payload.length() > header) {
+                payload.append(',');
+            }
+            payload.append(entry);
+        }
+        notify(payload.toString());
+    }
+
+    private void notify(String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> { }, CHANNEL, payload);
+        } catch (RuntimeException e) {
+            log.error("Failed to broadcast cache invalidation", e);
+        }
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnect) {
+                    deliver(List.of(ChangeNotice.everything()));
+                }
+                log.info("Listening for cache invalidations on {}", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Invalidation listener disconnected, retrying: {}", e.getMessage());
+                reconnect = true;
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf(';');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            // Local changes were already applied before they were published
+            return;
+        }
+        List<ChangeNotice> notices = new ArrayList<>();
+        for (String entry : payload.substring(separator + 1).split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String id = entry.substring(0, colon);
+            long version = Long.parseLong(entry.substring(colon + 1));
+            notices.add("*".equals(id) ? ChangeNotice.everything() : new ChangeNotice(Long.parseLong(id), version));
+        }
+        deliver(notices);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.recovery.spotibyeback21.cache;
+
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process LRU cache of track details, bounded by entry count and payload bytes.
+ *
+ * Entries carry the Track.version they were read at. Local changes evict entries
+ * after commit and are broadcast on the {@link InvalidationBus}; notices from other
+ * instances evict entries at or below the announced version, older notices are ignored.
+ * The newest announced version per track is remembered for a while, so a reader that
+ * raced with an update cannot put back the state it read before the update.
+ */
+@Component
+@Slf4j
+public class TrackCache implements MetricsSource {
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final InvalidationBus invalidationBus;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AnnouncedVersions announcedVersions = new AnnouncedVersions();
+    private long residentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong staleNotices = new AtomicLong();
+
+    public TrackCache(
+            InvalidationBus invalidationBus,
+            @Value("${spotibye.cache.max-entries:1000}") int maxEntries,
+            @Value("${spotibye.cache.max-bytes:67108864}") long maxBytes) {
+        this.invalidationBus = invalidationBus;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(this::onNotices);
+    }
+
+    public TrackDetailDTO get(Long id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.track;
+        }
+    }
+
+    public void put(Long id, long version, TrackDetailDTO track) {
+        if (announcedVersions.isSuperseded(id, version)) {
+            return;
+        }
+        long size = sizeOf(track);
+        if (size > maxBytes / 4) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(id, new Entry(version, size, track));
+            if (previous != null) {
+                residentBytes -= previous.size;
+            }
+            residentBytes += size;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || residentBytes > maxBytes) && eldest.hasNext()) {
+                residentBytes -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackChanged(TrackChangedEvent event) {
+        invalidate(event.getTrackId(), event.getVersion());
+        invalidationBus.publish(new ChangeNotice(event.getTrackId(), event.getVersion()));
+    }
+
+    void onNotices(List<ChangeNotice> notices) {
+        for (ChangeNotice notice : notices) {
+            if (notice.isEverything()) {
+                clear();
+            } else {
+                invalidate(notice.getTrackId(), notice.getVersion());
+            }
+        }
+    }
+
+    public void invalidate(Long id, long version) {
+        announcedVersions.announce(id, version);
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return;
+            }
+            if (entry.version > version) {
+                staleNotices.incrementAndGet();
+                return;
+            }
+            entries.remove(id);
+            residentBytes -= entry.size;
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            residentBytes = 0;
+        }
+        log.info("Track cache cleared");
+    }
+
+    @Override
+    public String metricsName() {
+        return "trackCache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+            metrics.put("residentBytes", residentBytes);
+        }
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("staleNoticesIgnored", staleNotices.get());
+        metrics.put("announcedVersions", announcedVersions.size());
+        return metrics;
+    }
+
+    private static long sizeOf(TrackDetailDTO track) {
+        return ENTRY_OVERHEAD + length(track.getAudioUrl()) + length(track.getCoverImage())
+                + length(track.getDescription()) + length(track.getTitle()) + length(track.getArtist());
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record Entry(long version, long size, TrackDetailDTO track) {
+    }
+}
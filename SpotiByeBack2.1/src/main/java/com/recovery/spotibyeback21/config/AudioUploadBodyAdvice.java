@@ -0,0 +1,72 @@
+package com.recovery.spotibyeback21.config;
+
+import com.recovery.spotibyeback21.audio.AudioPayload;
+import com.recovery.spotibyeback21.audio.AudioUrlExtractingInputStream;
+import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Streams the base64 audioUrl of track creation bodies to disk while Jackson
+ * parses the rest of the JSON, then attaches the resulting {@link AudioPayload}
+ * to the {@link CreateTrackDTO}. The payload file is removed when the request ends.
+ */
+@ControllerAdvice
+public class AudioUploadBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String STREAM_ATTRIBUTE = AudioUploadBodyAdvice.class.getName() + ".stream";
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+            Class<? extends HttpMessageConverter<?>> converterType) {
+        return CreateTrackDTO.class.equals(targetType)
+                && MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+            Type targetType, Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        AudioUrlExtractingInputStream body = new AudioUrlExtractingInputStream(inputMessage.getBody());
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        attributes.setAttribute(STREAM_ATTRIBUTE, body, RequestAttributes.SCOPE_REQUEST);
+        attributes.registerDestructionCallback(STREAM_ATTRIBUTE, () -> {
+            if (body.getPayload() != null) {
+                body.getPayload().close();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+
+        return new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return inputMessage.getHeaders();
+            }
+        };
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+            Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        Object stream = RequestContextHolder.currentRequestAttributes()
+                .getAttribute(STREAM_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (body instanceof CreateTrackDTO dto && stream instanceof AudioUrlExtractingInputStream extracting) {
+            dto.setAudioPayload(extracting.getPayload());
+        }
+        return body;
+    }
+}
@@ -1,18 +1,45 @@
 package com.recovery.spotibyeback21.controller;
 
+import com.recovery.spotibyeback21.audio.DecodedAudio;
+import com.recovery.spotibyeback21.dto.BulkDeleteDTO;
+import com.recovery.spotibyeback21.dto.BulkDeleteResultDTO;
 import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.ImportProgressDTO;
+import com.recovery.spotibyeback21.dto.PlayBatchDTO;
+import com.recovery.spotibyeback21.dto.SuggestionDTO;
+import com.recovery.spotibyeback21.dto.TrackBatchDTO;
+import com.recovery.spotibyeback21.dto.TrackChangesDTO;
 import com.recovery.spotibyeback21.dto.TrackDTO;
 import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.TrackQuery;
 import com.recovery.spotibyeback21.dto.UpdateTrackDTO;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.service.PlayEventService;
+import com.recovery.spotibyeback21.service.TrackChangeFeed;
+import com.recovery.spotibyeback21.service.TrackFields;
+import com.recovery.spotibyeback21.service.TrackListSnapshot;
 import com.recovery.spotibyeback21.service.TrackService;
+import com.recovery.spotibyeback21.service.TrackTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/tracks")
@@ -21,54 +48,323 @@ import java.util.List;
 @CrossOrigin(origins = { "http://localhost:4200", "http://localhost" })
 public class TrackController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_SIMILAR = 50;
+    private static final int MAX_TRENDING = 100;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_IDS_PER_GET = 200;
+    private static final int MAX_CHANGES = 1000;
+    private static final Pattern ENTITY_TAG = Pattern.compile("\\*|(?:W/)?\"[^\"]*\"");
+
     private final TrackService trackService;
+    private final PlayEventService playEventService;
+    private final TrackTransferService trackTransferService;
+    private final TrackListSnapshot trackListSnapshot;
+    private final TrackChangeFeed trackChangeFeed;
 
     /**
      * GET /api/tracks - Get all tracks
      * GET /api/tracks?category=pop - Get tracks by category
      * GET /api/tracks?search=query - Search tracks
      * GET /api/tracks?favorites=true - Get favorite tracks
+     * GET /api/tracks?artist=a&minDuration=60&maxDuration=300 - Filter by artist and duration (seconds)
+     * GET /api/tracks?createdFrom=2024-01-01T00:00:00&createdTo=2024-02-01T00:00:00 - Filter by creation date
+     * GET /api/tracks?sort=artist,-createdAt - Sort ('-' for descending)
+     * GET /api/tracks?fields=id,title,artist - Get only the listed fields
+     * All parameters above can be combined.
+     * GET /api/tracks?ids=3,1,2&detail=true - Get tracks by ID in that order (detail adds audioUrl);
+     * fields cannot be combined with ids
      */
     @GetMapping
-    public ResponseEntity<List<TrackDTO>> getTracks(
-            @RequestParam(required = false) String category,
-            @RequestParam(required = false) String search,
-            @RequestParam(required = false) Boolean favorites) {
+    public ResponseEntity<?> getTracks(
+            @Valid @ModelAttribute TrackQuery query,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(defaultValue = "false") boolean detail,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        log.debug("GET /api/tracks - query: {}, fields: {}, ids: {}", query, fields, ids);
+
+        if (ids != null) {
+            if (ids.size() > MAX_IDS_PER_GET) {
+                throw new InvalidRequestException("At most " + MAX_IDS_PER_GET + " IDs per GET; use POST /api/tracks/batch");
+            }
+            if (fields != null) {
+                throw new InvalidRequestException("fields cannot be combined with ids");
+            }
+            return ResponseEntity.ok(trackService.getTracksByIds(ids, detail));
+        }
 
-        log.info("GET /api/tracks - category: {}, search: {}, favorites: {}", category, search, favorites);
+        if (fields != null) {
+            List<Map<String, Object>> rows = trackService.getTrackFields(query,
+                    TrackFields.parse(fields, TrackFields.SUMMARY_FIELDS));
+            return ResponseEntity.ok(rows);
+        }
 
         List<TrackDTO> tracks;
 
-        if (favorites != null && favorites) {
-            tracks = trackService.getFavoriteTracks();
-        } else if (search != null && !search.isBlank()) {
-            tracks = trackService.searchTracks(search);
-        } else if (category != null && !category.isBlank()) {
-            tracks = trackService.getTracksByCategory(category);
+        if (!query.isUnfiltered()) {
+            tracks = trackService.findTracks(query);
         } else {
+            TrackListSnapshot.Snapshot snapshot = trackListSnapshot.current();
+            if (snapshot != null) {
+                return snapshotResponse(snapshot, acceptEncoding, ifNoneMatch);
+            }
             tracks = trackService.getAllTracks();
         }
 
         return ResponseEntity.ok(tracks);
     }
 
+    private ResponseEntity<byte[]> snapshotResponse(TrackListSnapshot.Snapshot snapshot,
+            String acceptEncoding, String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        byte[] body = gzip ? snapshot.gzip() : snapshot.json();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * GET /api/tracks/suggest?prefix=bea&k=5 - Autocomplete titles and artists
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "8") int k) {
+        List<SuggestionDTO> suggestions = trackService.suggest(prefix, Math.max(1, Math.min(k, MAX_SUGGESTIONS)));
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * GET /api/tracks/changes - Start a sync: every track, and a token
+     * GET /api/tracks/changes?since=token&limit=500 - Tracks changed and deleted since the token
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TrackChangesDTO> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        log.debug("GET /api/tracks/changes - since: {}, limit: {}", since, limit);
+        return ResponseEntity.ok(trackChangeFeed.getChanges(since, Math.max(1, Math.min(limit, MAX_CHANGES))));
+    }
+
+    /**
+     * GET /api/tracks/trending?window=1h&k=20 - Get trending tracks (window: 1h or 24h)
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrackDTO>> getTrendingTracks(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "20") int k) {
+        log.debug("GET /api/tracks/trending - window: {}, k: {}", window, k);
+        List<TrackDTO> tracks = trackService.getTrendingTracks(window, Math.max(1, Math.min(k, MAX_TRENDING)));
+        return ResponseEntity.ok(tracks);
+    }
+
+    /**
+     * GET /api/tracks/export - Stream the whole library as NDJSON
+     * GET /api/tracks/export?format=zip - Same, inside a zip archive
+     * GET /api/tracks/export?afterId=100 - Only tracks with a greater ID
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTracks(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "0") long afterId) {
+        log.debug("GET /api/tracks/export - format: {}, afterId: {}", format, afterId);
+        boolean zip = "zip".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> trackTransferService.exportTracks(out, zip, afterId);
+
+        return ResponseEntity.ok()
+                .contentType(zip ? MediaType.parseMediaType("application/zip") : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tracks." + (zip ? "zip" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    /**
+     * POST /api/tracks/import - Import an NDJSON (or zipped NDJSON) export
+     * POST /api/tracks/import?importId=abc - Resume import abc from its last checkpoint
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportProgressDTO> importTracks(
+            @RequestParam(required = false) String importId,
+            @RequestParam(required = false) Long resumeFrom,
+            HttpServletRequest request) throws IOException {
+        String id = importId != null ? importId : UUID.randomUUID().toString();
+        boolean zip = request.getContentType() != null && request.getContentType().startsWith("application/zip");
+        log.debug("POST /api/tracks/import - importId: {}, resumeFrom: {}", id, resumeFrom);
+        ImportProgressDTO progress = trackTransferService.importTracks(request.getInputStream(), zip, id, resumeFrom);
+        return ResponseEntity.ok(progress);
+    }
+
+    /**
+     * GET /api/tracks/import/{importId} - Get progress of an import
+     */
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ImportProgressDTO> getImportProgress(@PathVariable String importId) {
+        log.debug("GET /api/tracks/import/{}", importId);
+        return ResponseEntity.ok(trackTransferService.getImportProgress(importId));
+    }
+
     /**
      * GET /api/tracks/{id} - Get track by ID
+     * GET /api/tracks/{id}?fields=id,title,audioUrl - Get only the listed fields
      */
     @GetMapping("/{id}")
-    public ResponseEntity<com.recovery.spotibyeback21.dto.TrackDetailDTO> getTrackById(@PathVariable Long id) {
-        log.info("GET /api/tracks/{}", id);
+    public ResponseEntity<?> getTrackById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        log.debug("GET /api/tracks/{} - fields: {}", id, fields);
+        if (fields != null) {
+            return ResponseEntity.ok(trackService.getTrackFieldsById(id,
+                    TrackFields.parse(fields, TrackFields.DETAIL_FIELDS)));
+        }
         com.recovery.spotibyeback21.dto.TrackDetailDTO track = trackService.getTrackById(id);
         return ResponseEntity.ok(track);
     }
 
+    /**
+     * GET /api/tracks/{id}/audio - Stream the decoded audio (single byte ranges supported)
+     */
+    @GetMapping("/{id}/audio")
+    public void getTrackAudio(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse response) throws IOException {
+        log.debug("GET /api/tracks/{}/audio - range: {}", id, range);
+        DecodedAudio audio = trackService.getTrackAudio(id);
+        String etag = "\"" + id + "-" + audio.version() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etagMatches(ifNoneMatch, etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long size = audio.size();
+        long start = 0;
+        long end = size - 1;
+        List<HttpRange> ranges = parseRanges(range);
+        // Multiple ranges are not supported; the whole body is a valid answer to them
+        if (ranges.size() == 1) {
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+            if (start >= size || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        response.setContentType(audio.mediaType());
+        response.setContentLengthLong(end - start + 1);
+        audio.writeTo(response.getOutputStream(), start, end - start + 1);
+    }
+
+    /**
+     * Weak comparison of an If-None-Match list, or "*", against the current entity tag
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        Matcher tags = ENTITY_TAG.matcher(ifNoneMatch);
+        while (tags.find()) {
+            String tag = tags.group();
+            if ("*".equals(tag) || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed, or covered by "*", with a q-value above 0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    // q-value of one coding; a malformed value counts as not acceptable
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && (parameter.startsWith("q=") || parameter.startsWith("Q="))) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * GET /api/tracks/{id}/similar?k=10 - Get tracks similar to a track
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<TrackDTO>> getSimilarTracks(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int k) {
+        log.debug("GET /api/tracks/{}/similar - k: {}", id, k);
+        List<TrackDTO> tracks = trackService.getSimilarTracks(id, Math.max(1, Math.min(k, MAX_SIMILAR)));
+        return ResponseEntity.ok(tracks);
+    }
+
     /**
      * POST /api/tracks - Create new track
      */
     @PostMapping
     public ResponseEntity<com.recovery.spotibyeback21.dto.TrackDetailDTO> createTrack(
             @Valid @RequestBody CreateTrackDTO createTrackDTO) {
-        log.info("POST /api/tracks - Creating track: {}", createTrackDTO.getTitle());
+        log.debug("POST /api/tracks - Creating track: {}", createTrackDTO.getTitle());
         com.recovery.spotibyeback21.dto.TrackDetailDTO createdTrack = trackService.createTrack(createTrackDTO);
         return new ResponseEntity<>(createdTrack, HttpStatus.CREATED);
     }
@@ -80,7 +376,7 @@ public class TrackController {
     public ResponseEntity<TrackDTO> updateTrack(
             @PathVariable Long id,
             @Valid @RequestBody UpdateTrackDTO updateTrackDTO) {
-        log.info("PUT /api/tracks/{} - Updating track", id);
+        log.debug("PUT /api/tracks/{} - Updating track", id);
         TrackDTO updatedTrack = trackService.updateTrack(id, updateTrackDTO);
         return ResponseEntity.ok(updatedTrack);
     }
@@ -90,18 +386,57 @@ public class TrackController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTrack(@PathVariable Long id) {
-        log.info("DELETE /api/tracks/{}", id);
+        log.debug("DELETE /api/tracks/{}", id);
         trackService.deleteTrack(id);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * POST /api/tracks/batch - Get many tracks by ID in the requested order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TrackDTO>> getTracksByIds(@Valid @RequestBody TrackBatchDTO trackBatchDTO) {
+        log.debug("POST /api/tracks/batch - {} tracks, detail: {}", trackBatchDTO.getIds().size(), trackBatchDTO.isDetail());
+        return ResponseEntity.ok(trackService.getTracksByIds(trackBatchDTO.getIds(), trackBatchDTO.isDetail()));
+    }
+
+    /**
+     * POST /api/tracks/bulk-delete - Delete many tracks at once
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<BulkDeleteResultDTO> deleteTracks(@Valid @RequestBody BulkDeleteDTO bulkDeleteDTO) {
+        log.debug("POST /api/tracks/bulk-delete - {} tracks", bulkDeleteDTO.getIds().size());
+        int deleted = trackService.deleteTracks(bulkDeleteDTO.getIds());
+        return ResponseEntity.ok(new BulkDeleteResultDTO(bulkDeleteDTO.getIds().size(), deleted));
+    }
+
     /**
      * PATCH /api/tracks/{id}/favorite - Toggle favorite status
      */
     @PatchMapping("/{id}/favorite")
     public ResponseEntity<TrackDTO> toggleFavorite(@PathVariable Long id) {
-        log.info("PATCH /api/tracks/{}/favorite", id);
+        log.debug("PATCH /api/tracks/{}/favorite", id);
         TrackDTO track = trackService.toggleFavorite(id);
         return ResponseEntity.ok(track);
     }
+
+    /**
+     * POST /api/tracks/{id}/plays - Record a play of a track
+     */
+    @PostMapping("/{id}/plays")
+    public ResponseEntity<Void> recordPlay(@PathVariable Long id) {
+        log.debug("POST /api/tracks/{}/plays", id);
+        playEventService.recordPlay(id);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * POST /api/tracks/plays - Record several plays at once
+     */
+    @PostMapping("/plays")
+    public ResponseEntity<Void> recordPlays(@Valid @RequestBody PlayBatchDTO playBatchDTO) {
+        log.debug("POST /api/tracks/plays - {} plays", playBatchDTO.getTrackIds().size());
+        playEventService.recordPlays(playBatchDTO.getTrackIds());
+        return ResponseEntity.accepted().build();
+    }
 }
@@ -0,0 +1,107 @@
+package com.recovery.spotibyeback21.controller;
+
+import com.recovery.spotibyeback21.dto.CreateUploadDTO;
+import com.recovery.spotibyeback21.dto.FinalizeUploadDTO;
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.UploadStatusDTO;
+import com.recovery.spotibyeback21.service.UploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Resumable uploads: create a session, PATCH chunks at Upload-Offset, check the
+ * offset with HEAD after a failure, then finalize into a track.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = { "http://localhost:4200", "http://localhost" })
+public class UploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final UploadService uploadService;
+
+    /**
+     * POST /api/uploads - Start an upload
+     */
+    @PostMapping
+    public ResponseEntity<UploadStatusDTO> createUpload(@Valid @RequestBody CreateUploadDTO createUploadDTO) {
+        log.debug("POST /api/uploads - {} bytes of {}", createUploadDTO.getLength(), createUploadDTO.getMediaType());
+        UploadStatusDTO upload = uploadService.createUpload(createUploadDTO);
+        return ResponseEntity.created(URI.create("/api/uploads/" + upload.getUploadId()))
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, Long.toString(upload.getLength()))
+                .body(upload);
+    }
+
+    /**
+     * HEAD /api/uploads/{id} - Current offset in the Upload-Offset header
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable String id) {
+        UploadStatusDTO upload = uploadService.getUpload(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, Long.toString(upload.getOffset()))
+                .header(UPLOAD_LENGTH, Long.toString(upload.getLength()))
+                .build();
+    }
+
+    /**
+     * GET /api/uploads/{id} - Get upload status
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadStatusDTO> getUpload(@PathVariable String id) {
+        log.debug("GET /api/uploads/{}", id);
+        return ResponseEntity.ok(uploadService.getUpload(id));
+    }
+
+    /**
+     * PATCH /api/uploads/{id} - Append the request body at Upload-Offset (409 if it is not the current offset)
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> writeChunk(
+            @PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+        log.debug("PATCH /api/uploads/{} - offset: {}, length: {}", id, offset, request.getContentLengthLong());
+        long newOffset = uploadService.writeChunk(id, offset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, Long.toString(newOffset))
+                .build();
+    }
+
+    /**
+     * POST /api/uploads/{id}/finalize - Create a track from a complete upload
+     */
+    @PostMapping("/{id}/finalize")
+    public ResponseEntity<TrackDetailDTO> finalizeUpload(
+            @PathVariable String id,
+            @Valid @RequestBody FinalizeUploadDTO finalizeUploadDTO) {
+        log.debug("POST /api/uploads/{}/finalize - {}", id, finalizeUploadDTO.getTitle());
+        TrackDetailDTO track = uploadService.finalizeUpload(id, finalizeUploadDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(track);
+    }
+
+    /**
+     * DELETE /api/uploads/{id} - Abandon an upload
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id) {
+        log.debug("DELETE /api/uploads/{}", id);
+        uploadService.cancelUpload(id);
+        return ResponseEntity.noContent().build();
+    }
+}
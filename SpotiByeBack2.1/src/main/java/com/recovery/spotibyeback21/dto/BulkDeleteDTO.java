@@ -0,0 +1,20 @@
+package com.recovery.spotibyeback21.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteDTO {
+
+    @NotEmpty(message = "At least one track ID is required")
+    @Size(max = 10000, message = "At most 10000 tracks can be deleted at once")
+    private List<@NotNull Long> ids;
+}
@@ -0,0 +1,13 @@
+package com.recovery.spotibyeback21.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResultDTO {
+    private int requested;
+    private int deleted;
+}
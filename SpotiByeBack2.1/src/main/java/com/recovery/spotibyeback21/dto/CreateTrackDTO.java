@@ -1,15 +1,17 @@
 package com.recovery.spotibyeback21.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.recovery.spotibyeback21.audio.AudioPayload;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class CreateTrackDTO {
     
     @NotBlank(message = "Title is required")
@@ -33,4 +35,21 @@ public class CreateTrackDTO {
     
     @NotNull(message = "Duration is required")
     private Integer duration;
+
+    // Decoded audio when audioUrl was sent as a base64 data URL; audioUrl then only holds the header
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private AudioPayload audioPayload;
+
+    public CreateTrackDTO(String title, String artist, String category, String description,
+            String audioUrl, String coverImage, Integer duration) {
+        this.title = title;
+        this.artist = artist;
+        this.category = category;
+        this.description = description;
+        this.audioUrl = audioUrl;
+        this.coverImage = coverImage;
+        this.duration = duration;
+    }
 }
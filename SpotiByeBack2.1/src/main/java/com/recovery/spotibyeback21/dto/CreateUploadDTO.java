@@ -0,0 +1,22 @@
+package com.recovery.spotibyeback21.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadDTO {
+
+    @NotNull(message = "Length is required")
+    @Positive(message = "Length must be positive")
+    private Long length;
+
+    @NotNull(message = "Media type is required")
+    @Pattern(regexp = "audio/[A-Za-z0-9.+-]+", message = "Media type must be an audio type")
+    private String mediaType;
+}
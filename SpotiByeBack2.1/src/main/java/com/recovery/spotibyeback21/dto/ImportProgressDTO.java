@@ -0,0 +1,23 @@
+package com.recovery.spotibyeback21.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressDTO {
+    private String importId;
+    private String status;
+    // Number of input records durably imported or skipped; pass as resumeFrom to continue
+    private Long lastCommittedLine;
+    private Long imported;
+    private Long failed;
+    private Long bytesRead;
+    private List<String> errors;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,20 @@
+package com.recovery.spotibyeback21.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayBatchDTO {
+
+    @NotEmpty(message = "Track IDs are required")
+    @Size(max = 1000, message = "At most 1000 plays per batch")
+    private List<@NotNull Long> trackIds;
+}
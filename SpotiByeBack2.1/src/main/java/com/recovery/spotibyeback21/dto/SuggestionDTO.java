@@ -0,0 +1,18 @@
+package com.recovery.spotibyeback21.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SuggestionDTO {
+    private String text;
+    // "title" or "artist"
+    private String type;
+    // Only set for title suggestions
+    private Long trackId;
+}
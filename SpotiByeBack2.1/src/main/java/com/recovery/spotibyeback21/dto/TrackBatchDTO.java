@@ -0,0 +1,23 @@
+package com.recovery.spotibyeback21.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackBatchDTO {
+
+    @NotEmpty(message = "Track IDs are required")
+    @Size(max = 1000, message = "At most 1000 tracks per batch")
+    private List<@NotNull Long> ids;
+
+    // Include audioUrl; detail batches are limited to 50 tracks
+    private boolean detail;
+}
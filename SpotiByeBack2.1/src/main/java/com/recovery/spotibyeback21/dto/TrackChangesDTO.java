@@ -0,0 +1,21 @@
+package com.recovery.spotibyeback21.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackChangesDTO {
+    // Tracks created or updated since the token, in the order they changed
+    private List<TrackDTO> changed;
+    // IDs of tracks deleted since the token
+    private List<Long> deleted;
+    // Pass as since on the next call
+    private String token;
+    // Whether more changes are waiting; fetch again right away with the new token
+    private boolean more;
+}
@@ -0,0 +1,52 @@
+package com.recovery.spotibyeback21.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters and sort order of GET /api/tracks, bound from the query string.
+ * All given filters are combined.
+ */
+@Data
+@NoArgsConstructor
+public class TrackQuery {
+
+    private String category;
+
+    // Matches title or artist, case-insensitive
+    private String search;
+
+    private Boolean favorites;
+
+    // Matches artist, case-insensitive
+    private String artist;
+
+    @Min(value = 0, message = "minDuration must be positive")
+    private Integer minDuration;
+
+    @Min(value = 0, message = "maxDuration must be positive")
+    private Integer maxDuration;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    // Comma-separated fields, prefixed with '-' for descending, e.g. "artist,-createdAt"
+    private String sort;
+
+    public boolean isUnfiltered() {
+        return isBlank(category) && isBlank(search) && !Boolean.TRUE.equals(favorites) && isBlank(artist)
+                && minDuration == null && maxDuration == null && createdFrom == null && createdTo == null
+                && isBlank(sort);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,18 @@
+package com.recovery.spotibyeback21.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadStatusDTO {
+    private String uploadId;
+    private String mediaType;
+    private long offset;
+    private long length;
+    private Instant expiresAt;
+}
@@ -0,0 +1,33 @@
+package com.recovery.spotibyeback21.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single playback of a track. Rows are written in batches by PlayEventService,
+ * the entity mainly defines the table.
+ */
+@Entity
+@Table(name = "play_events", indexes = {
+        @Index(name = "idx_play_events_track_id", columnList = "track_id"),
+        @Index(name = "idx_play_events_played_at", columnList = "played_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "track_id", nullable = false)
+    private Long trackId;
+
+    @Column(name = "played_at", nullable = false)
+    private LocalDateTime playedAt;
+}
@@ -5,12 +5,23 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tracks")
+@Table(name = "tracks", indexes = {
+        @Index(name = "idx_tracks_category", columnList = "category"),
+        @Index(name = "idx_tracks_artist", columnList = "artist"),
+        @Index(name = "idx_tracks_is_favorite", columnList = "is_favorite"),
+        @Index(name = "idx_tracks_duration", columnList = "duration"),
+        @Index(name = "idx_tracks_created_at", columnList = "created_at"),
+        @Index(name = "idx_tracks_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_tracks_change_seq", columnList = "change_seq")
+})
+// Deleted tracks stay as tombstones and are hidden from every entity query
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +55,10 @@ public class Track {
     @Column(name = "is_favorite")
     private Boolean isFavorite = false;
 
+    // Maintained in batches by PlayEventService over JDBC; entity flushes must never write it back
+    @Column(name = "play_count", updatable = false)
+    private Long playCount = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -51,4 +66,22 @@ public class Track {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Optimistic lock, bumped by every entity update and by bulk tombstoning; orders cache invalidations across instances
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Set when the track is deleted; audio and cover are cleared later by PayloadPurger.
+    // Only those bulk updates write it, so an entity flush cannot bring a track back.
+    @Column(name = "deleted_at", updatable = false)
+    private LocalDateTime deletedAt;
+
+    // Set once the payloads of a deleted track have been cleared
+    @Column(name = "purged_at", updatable = false)
+    private LocalDateTime purgedAt;
+
+    // Position in the change feed; assigned from track_change_seq (schema.sql) by TrackRepository.markChanged
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
 }
@@ -0,0 +1,35 @@
+package com.recovery.spotibyeback21.event;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import lombok.Value;
+
+/**
+ * Published by TrackService whenever a track is created, updated or deleted.
+ * In-memory indexes listen for it after the transaction commits.
+ */
+@Value
+public class TrackChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    ChangeType type;
+    Long trackId;
+    // State after the change, null for deletions
+    TrackDTO track;
+    // Track.version after the change; deletions use Long.MAX_VALUE as they supersede every version
+    long version;
+
+    public static TrackChangedEvent created(TrackDTO track, Long version) {
+        return new TrackChangedEvent(ChangeType.CREATED, track.getId(), track, version == null ? 0 : version);
+    }
+
+    public static TrackChangedEvent updated(TrackDTO track, Long version) {
+        return new TrackChangedEvent(ChangeType.UPDATED, track.getId(), track, version == null ? 0 : version);
+    }
+
+    public static TrackChangedEvent deleted(Long trackId) {
+        return new TrackChangedEvent(ChangeType.DELETED, trackId, null, Long.MAX_VALUE);
+    }
+}
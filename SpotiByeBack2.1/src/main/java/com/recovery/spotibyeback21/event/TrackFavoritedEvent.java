@@ -0,0 +1,13 @@
+package com.recovery.spotibyeback21.event;
+
+import lombok.Value;
+
+/**
+ * Published by TrackService when a track goes from not favorite to favorite.
+ * TrendingTracker counts it once the transaction has committed.
+ */
+@Value
+public class TrackFavoritedEvent {
+
+    Long trackId;
+}
@@ -0,0 +1,7 @@
+package com.recovery.spotibyeback21.exception;
+
+public class CapacityExceededException extends RuntimeException {
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.recovery.spotibyeback21.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.recovery.spotibyeback21.exception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,139 @@
+package com.recovery.spotibyeback21.filter;
+
+import com.recovery.spotibyeback21.logging.RequestTimings;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One structured log line per sampled request.
+ *
+ * The line carries method, route pattern (never the query string), status and the
+ * total, database and serialization milliseconds, which are also put in the MDC.
+ * Requests are sampled at a default rate that can be overridden per route, e.g.
+ * {@code GET /api/tracks/{id}/audio=0.001}; server errors and slow requests are
+ * always logged.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class RequestLoggingFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final List<String> MDC_KEYS = List.of("route", "status", "total_ms", "db_ms", "db_statements", "ser_ms");
+
+    private final double sampleRate;
+    private final Map<String, Double> endpointRates;
+    private final long slowNanos;
+
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public RequestLoggingFilter(
+            @Value("${spotibye.request-log.sample-rate:0.01}") double sampleRate,
+            @Value("${spotibye.request-log.endpoint-rates:}") String endpointRates,
+            @Value("${spotibye.request-log.slow-ms:1000}") long slowMs) {
+        this.sampleRate = sampleRate;
+        this.endpointRates = parseRates(endpointRates);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMs);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        RequestTimings timings = RequestTimings.begin();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            RequestTimings.end();
+            long totalNanos = System.nanoTime() - start;
+            String route = route(request);
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            if (status >= 500 || totalNanos >= slowNanos || sampled(route)) {
+                write(route, status, totalNanos, timings);
+            } else {
+                skipped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "requestLog";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sampleRate", sampleRate);
+        metrics.put("logged", logged.get());
+        metrics.put("skipped", skipped.get());
+        return metrics;
+    }
+
+    boolean sampled(String route) {
+        double rate = endpointRates.getOrDefault(route, sampleRate);
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private void write(String route, int status, long totalNanos, RequestTimings timings) {
+        String totalMs = millis(totalNanos);
+        String dbMs = millis(timings.getDbNanos());
+        String serMs = millis(timings.getSerializationNanos());
+        MDC.put("route", route);
+        MDC.put("status", String.valueOf(status));
+        MDC.put("total_ms", totalMs);
+        MDC.put("db_ms", dbMs);
+        MDC.put("db_statements", String.valueOf(timings.getStatements()));
+        MDC.put("ser_ms", serMs);
+        try {
+            log.info("{} status={} total_ms={} db_ms={} db_statements={} ser_ms={}",
+                    route, status, totalMs, dbMs, timings.getStatements(), serMs);
+            logged.incrementAndGet();
+        } finally {
+            MDC_KEYS.forEach(MDC::remove);
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static Map<String, Double> parseRates(String rates) {
+        Map<String, Double> parsed = new HashMap<>();
+        for (String entry : rates.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator > 0) {
+                parsed.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,234 @@
+package com.recovery.spotibyeback21.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recovery.spotibyeback21.exception.ErrorResponse;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for large request bodies.
+ *
+ * Base64 JSON uploads cost several times their wire size in heap (raw body, parsed
+ * text, decoded bytes). Every write request above the large-request threshold must
+ * reserve its estimated heap cost from a shared byte budget and take one of a fixed
+ * number of slots before it is handed to the controller. Requests that cannot be
+ * admitted within the queue timeout are rejected with 429 and a Retry-After header.
+ * Reads and small writes are never held back. Imports are parsed incrementally and
+ * reserve budget for each batch they hold through {@link #reserve(long)} instead.
+ */
+@Component
+@Slf4j
+public class UploadAdmissionFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final int KIB = 1024;
+    // Bodies parsed in batches that reserve their own budget, so the whole body is not charged up front
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/tracks/import");
+    // Upload chunks are written straight to disk
+    private static final String STREAMING_PATCH_PREFIX = "/api/uploads/";
+
+    private final ObjectMapper objectMapper;
+    private final long largeRequestThreshold;
+    private final long maxRequestBytes;
+    private final int amplification;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+    private final int retryAfterSeconds;
+
+    private final int budgetKib;
+    private final Semaphore budget;
+    private final Semaphore slots;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong passedThrough = new AtomicLong();
+
+    public UploadAdmissionFilter(
+            ObjectMapper objectMapper,
+            @Value("${spotibye.admission.heap-share:0.4}") double heapShare,
+            @Value("${spotibye.admission.max-concurrent:4}") int maxConcurrent,
+            @Value("${spotibye.admission.max-queued:16}") int maxQueued,
+            @Value("${spotibye.admission.queue-timeout-ms:2000}") long queueTimeoutMs,
+            @Value("${spotibye.admission.amplification:3}") int amplification,
+            @Value("${spotibye.admission.large-request-threshold:1048576}") long largeRequestThreshold,
+            @Value("${spotibye.admission.max-request-bytes:52428800}") long maxRequestBytes,
+            @Value("${spotibye.admission.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.objectMapper = objectMapper;
+        this.largeRequestThreshold = largeRequestThreshold;
+        this.maxRequestBytes = maxRequestBytes;
+        this.amplification = amplification;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        long budgetBytes = (long) (Runtime.getRuntime().maxMemory() * heapShare);
+        this.budgetKib = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / KIB));
+        this.budget = new Semaphore(budgetKib, true);
+        this.slots = new Semaphore(maxConcurrent, true);
+
+        log.info("Upload admission: budget {} MiB, {} concurrent large requests", budgetKib / KIB, maxConcurrent);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method))
+                || !request.getRequestURI().startsWith("/api/")
+                || STREAMING_PATHS.contains(request.getRequestURI())
+                || ("PATCH".equals(method) && request.getRequestURI().startsWith(STREAMING_PATCH_PREFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength >= 0 && contentLength < largeRequestThreshold) {
+            passedThrough.incrementAndGet();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Unknown length (chunked transfer) is charged as the largest body we accept
+        long bodyBytes = contentLength < 0 ? maxRequestBytes : contentLength;
+        int permits = estimateCostKib(bodyBytes);
+
+        if (!acquire(permits)) {
+            rejected.incrementAndGet();
+            log.warn("Rejected {} {} ({} bytes): upload budget exhausted",
+                    request.getMethod(), request.getRequestURI(), bodyBytes);
+            reject(request, response);
+            return;
+        }
+
+        admitted.incrementAndGet();
+        inFlight.incrementAndGet();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+            budget.release(permits);
+            slots.release();
+        }
+    }
+
+    /**
+     * Whether any large write is currently being processed
+     */
+    public boolean isBusy() {
+        return inFlight.get() > 0 || queueDepth.get() > 0;
+    }
+
+    /**
+     * Reserve the heap cost of bytes held outside a filtered request, such as one import batch,
+     * waiting up to the queue timeout
+     *
+     * @return the permits to hand back to {@link #release(int)}, or 0 if the budget stayed exhausted
+     */
+    public int reserve(long bytes) {
+        int permits = estimateCostKib(bytes);
+        try {
+            if (!budget.tryAcquire(permits, queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        admitted.incrementAndGet();
+        inFlight.incrementAndGet();
+        return permits;
+    }
+
+    public void release(int permits) {
+        if (permits > 0) {
+            inFlight.decrementAndGet();
+            budget.release(permits);
+        }
+    }
+
+    int estimateCostKib(long bodyBytes) {
+        long costKib = (bodyBytes * amplification + KIB - 1) / KIB;
+        // A single request larger than the whole budget may still run, alone
+        return (int) Math.max(1, Math.min(costKib, budgetKib));
+    }
+
+    private boolean acquire(int permits) {
+        if (queueDepth.incrementAndGet() > maxQueued) {
+            queueDepth.decrementAndGet();
+            return false;
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+            if (!slots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            if (!budget.tryAcquire(permits, remaining, TimeUnit.NANOSECONDS)) {
+                slots.release();
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                "Server is busy processing uploads, retry later",
+                request.getRequestURI());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    @Override
+    public String metricsName() {
+        return "uploadAdmission";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("budgetBytes", (long) budgetKib * KIB);
+        metrics.put("availableBytes", (long) budget.availablePermits() * KIB);
+        metrics.put("availableSlots", slots.availablePermits());
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("queueDepth", queueDepth.get());
+        metrics.put("admitted", admitted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("passedThrough", passedThrough.get());
+        return metrics;
+    }
+}
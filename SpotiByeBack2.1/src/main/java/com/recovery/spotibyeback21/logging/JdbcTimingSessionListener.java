@@ -0,0 +1,34 @@
+package com.recovery.spotibyeback21.logging;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the execution time of every JDBC statement and batch run by a Hibernate
+ * session to the current request's {@link RequestTimings}.
+ * Registered through hibernate.session.events.auto, one instance per session.
+ */
+public class JdbcTimingSessionListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.recordStatement(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimings.recordStatement(System.nanoTime() - batchStart);
+    }
+}
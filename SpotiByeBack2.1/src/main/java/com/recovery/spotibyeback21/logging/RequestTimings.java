@@ -0,0 +1,56 @@
+package com.recovery.spotibyeback21.logging;
+
+/**
+ * Time spent on the database and on response serialization by the current request.
+ *
+ * Bound to the request thread by the RequestLoggingFilter; the recording methods
+ * do nothing on threads without a request, such as background jobs.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private long dbNanos;
+    private int statements;
+    private long serializationNanos;
+
+    private RequestTimings() {
+    }
+
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void recordStatement(long nanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.dbNanos += nanos;
+            timings.statements++;
+        }
+    }
+
+    public static void recordSerialization(long nanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.serializationNanos += nanos;
+        }
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getSerializationNanos() {
+        return serializationNanos;
+    }
+}
@@ -59,7 +59,10 @@ public class TrackMapper {
         track.setArtist(dto.getArtist());
         track.setCategory(dto.getCategory());
         track.setDescription(dto.getDescription());
-        track.setAudioUrl(dto.getAudioUrl());
+        // Spooled uploads are re-encoded once, straight into the stored data URL
+        track.setAudioUrl(dto.getAudioPayload() != null
+                ? dto.getAudioPayload().toDataUrl()
+                : dto.getAudioUrl());
         track.setCoverImage(dto.getCoverImage());
         track.setDuration(dto.getDuration());
         track.setIsFavorite(false); // Default value
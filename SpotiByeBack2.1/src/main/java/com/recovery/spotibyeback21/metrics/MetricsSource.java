@@ -0,0 +1,20 @@
+package com.recovery.spotibyeback21.metrics;
+
+import java.util.Map;
+
+/**
+ * A component that exposes a point-in-time view of its internal counters.
+ * All sources are aggregated under GET /api/metrics.
+ */
+public interface MetricsSource {
+
+    /**
+     * Section name used as the key in the metrics response
+     */
+    String metricsName();
+
+    /**
+     * Current values, keyed by metric name
+     */
+    Map<String, Object> metrics();
+}
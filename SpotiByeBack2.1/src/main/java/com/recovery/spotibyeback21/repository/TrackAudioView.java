@@ -0,0 +1,10 @@
+package com.recovery.spotibyeback21.repository;
+
+/**
+ * Audio data URL of a track and the version it was read at, for the audio cache
+ */
+public interface TrackAudioView {
+    String getAudioUrl();
+
+    Long getVersion();
+}
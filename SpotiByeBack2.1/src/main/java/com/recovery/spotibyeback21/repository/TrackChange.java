@@ -0,0 +1,15 @@
+package com.recovery.spotibyeback21.repository;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change feed; track is null when the track was deleted
+ */
+public record TrackChange(long changeSeq, Long id, LocalDateTime changedAt, TrackDTO track) {
+
+    public boolean isDeleted() {
+        return track == null;
+    }
+}
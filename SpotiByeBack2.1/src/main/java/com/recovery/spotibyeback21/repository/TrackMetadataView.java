@@ -0,0 +1,16 @@
+package com.recovery.spotibyeback21.repository;
+
+/**
+ * Lightweight projection of the text columns of a track, without audio or cover payloads
+ */
+public interface TrackMetadataView {
+    Long getId();
+
+    String getTitle();
+
+    String getArtist();
+
+    String getCategory();
+
+    String getDescription();
+}
@@ -0,0 +1,14 @@
+package com.recovery.spotibyeback21.repository;
+
+/**
+ * Title, artist and play count of a track, for building the suggestion index
+ */
+public interface TrackPopularityView {
+    Long getId();
+
+    String getTitle();
+
+    String getArtist();
+
+    Long getPlayCount();
+}
@@ -1,26 +1,62 @@
 package com.recovery.spotibyeback21.repository;
 
+import com.recovery.spotibyeback21.dto.TrackDTO;
 import com.recovery.spotibyeback21.entity.Track;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TrackRepository extends JpaRepository<Track, Long> {
-    
-    // Find all favorite tracks
-    List<Track> findByIsFavoriteTrue();
-    
-    // Find tracks by category
-    List<Track> findByCategory(String category);
-    
-    // Find tracks by artist (case-insensitive)
-    List<Track> findByArtistContainingIgnoreCase(String artist);
-    
-    // Find tracks by title (case-insensitive)
-    List<Track> findByTitleContainingIgnoreCase(String title);
-    
-    // Search tracks by title or artist
-    List<Track> findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(String title, String artist);
+public interface TrackRepository extends JpaRepository<Track, Long>, TrackRepositoryCustom {
+
+    // Text columns of every track, for building in-memory indexes
+    @Query("select t.id as id, t.title as title, t.artist as artist, t.category as category, "
+            + "t.description as description from Track t")
+    List<TrackMetadataView> findAllMetadata();
+
+    // Title, artist and play count of every track, for building the suggestion index
+    @Query("select t.id as id, t.title as title, t.artist as artist, t.playCount as playCount from Track t")
+    List<TrackPopularityView> findAllPopularity();
+
+    // All tracks in ID order, fetched from a server-side cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "50"))
+    @Query("select t from Track t where t.id > :afterId order by t.id")
+    Stream<Track> streamAllByIdGreaterThan(@Param("afterId") Long afterId);
+
+    // Track DTOs by ID without loading the audio payload
+    @Query("select new com.recovery.spotibyeback21.dto.TrackDTO(t.id, t.title, t.artist, t.category, "
+            + "t.description, t.coverImage, t.duration, t.isFavorite, t.createdAt, t.updatedAt) "
+            + "from Track t where t.id in :ids")
+    List<TrackDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Audio payload and version of one track, without the other large columns
+    @Query("select t.audioUrl as audioUrl, t.version as version from Track t where t.id = :id")
+    Optional<TrackAudioView> findAudioById(@Param("id") Long id);
+
+    // Tombstone one track in a single statement, without touching its payloads
+    @Modifying
+    @Query("update Track t set t.deletedAt = :now, t.version = coalesce(t.version, 0) + 1 "
+            + "where t.id = :id and t.deletedAt is null")
+    int softDeleteById(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Tombstone many tracks in a single statement
+    @Modifying
+    @Query("update Track t set t.deletedAt = :now, t.version = coalesce(t.version, 0) + 1 "
+            + "where t.id in :ids and t.deletedAt is null")
+    int softDeleteByIdIn(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // IDs among the given ones that belong to live tracks
+    @Query("select t.id from Track t where t.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,49 @@
+package com.recovery.spotibyeback21.repository;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.entity.Track;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface TrackRepositoryCustom {
+
+    /**
+     * Track DTOs of the matching tracks without loading the audio payload,
+     * in the given order and then by ID
+     */
+    List<TrackDTO> findSummaries(Specification<Track> spec, Sort sort);
+
+    /**
+     * Select only the given Track attributes of the matching tracks, in the given order and then by ID.
+     * Each row maps attribute name to value, in the order the fields were given.
+     */
+    List<Map<String, Object>> findFields(Specification<Track> spec, Sort sort, Collection<String> fields);
+
+    /**
+     * Select only the given Track attributes of one track
+     */
+    Optional<Map<String, Object>> findFieldsById(Long id, Collection<String> fields);
+
+    /**
+     * Give each of the tracks, deleted or not, a new change sequence number and stamp updated_at
+     *
+     * @return the number of tracks stamped
+     */
+    int markChanged(Collection<Long> ids, LocalDateTime now);
+
+    /**
+     * Give a change sequence number to tracks written before change tracking existed
+     */
+    int markUnsequenced();
+
+    /**
+     * Tracks changed after the given sequence number, tombstones included, in sequence order
+     */
+    List<TrackChange> findChangesSince(long since, int limit);
+}
@@ -0,0 +1,160 @@
+package com.recovery.spotibyeback21.repository;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.entity.Track;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Projections built with the Criteria API, so the generated SQL only
+ * selects the needed columns and filters, sorts in one statement.
+ * The change feed is native SQL: it has to see tombstones, which every
+ * entity query hides, and to draw from a sequence outside the ID.
+ */
+class TrackRepositoryImpl implements TrackRepositoryCustom {
+
+    private static final String CHANGE_SEQUENCE = "track_change_seq";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TrackDTO> findSummaries(Specification<Track> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TrackDTO> query = cb.createQuery(TrackDTO.class);
+        Root<Track> root = query.from(Track.class);
+        query.select(cb.construct(TrackDTO.class,
+                root.get("id"), root.get("title"), root.get("artist"), root.get("category"),
+                root.get("description"), root.get("coverImage"), root.get("duration"),
+                root.get("isFavorite"), root.get("createdAt"), root.get("updatedAt")));
+        restrict(query, root, cb, spec, sort);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Track> spec, Sort sort, Collection<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Track> root = query.from(Track.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        restrict(query, root, cb, spec, sort);
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, Collection<String> fields) {
+        Specification<Track> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return findFields(byId, Sort.unsorted(), fields).stream().findFirst();
+    }
+
+    @Override
+    public int markChanged(Collection<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Evaluated per row, so every track gets its own number
+        return entityManager.createNativeQuery("update tracks set change_seq = " + nextChangeSeq()
+                        + ", updated_at = :now where id in (:ids)")
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    @Override
+    public int markUnsequenced() {
+        return entityManager.createNativeQuery("update tracks set change_seq = " + nextChangeSeq()
+                        + " where change_seq is null")
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TrackChange> findChangesSince(long since, int limit) {
+        Query query = entityManager.createNativeQuery("select id, title, artist, category, description, cover_image, "
+                        + "duration, is_favorite, created_at, updated_at, deleted_at, change_seq from tracks "
+                        + "where change_seq > :since order by change_seq")
+                .setParameter("since", since)
+                .setMaxResults(limit);
+        query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("artist", String.class)
+                .addScalar("category", String.class)
+                .addScalar("description", String.class)
+                .addScalar("cover_image", String.class)
+                .addScalar("duration", Integer.class)
+                .addScalar("is_favorite", Boolean.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .addScalar("updated_at", LocalDateTime.class)
+                .addScalar("deleted_at", LocalDateTime.class)
+                .addScalar("change_seq", Long.class);
+
+        List<Object[]> rows = query.getResultList();
+        List<TrackChange> changes = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            LocalDateTime updatedAt = (LocalDateTime) row[9];
+            TrackDTO track = row[10] != null ? null : new TrackDTO(id, (String) row[1], (String) row[2],
+                    (String) row[3], (String) row[4], (String) row[5], (Integer) row[6], (Boolean) row[7],
+                    (LocalDateTime) row[8], updatedAt);
+            changes.add(new TrackChange((Long) row[11], id, updatedAt, track));
+        }
+        return changes;
+    }
+
+    private String nextChangeSeq() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSelectSequenceNextValString(CHANGE_SEQUENCE);
+    }
+
+    private static void restrict(CriteriaQuery<?> query, Root<Track> root, CriteriaBuilder cb,
+            Specification<Track> spec, Sort sort) {
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, root, cb));
+        if (sort.getOrderFor("id") == null) {
+            orders.add(cb.asc(root.get("id")));
+        }
+        query.orderBy(orders);
+    }
+}
@@ -0,0 +1,109 @@
+package com.recovery.spotibyeback21.repository;
+
+import com.recovery.spotibyeback21.dto.TrackQuery;
+import com.recovery.spotibyeback21.entity.Track;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Reusable query predicates on tracks
+ */
+public final class TrackSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TrackSpecifications() {
+    }
+
+    /**
+     * Conjunction of every filter set on the query
+     */
+    public static Specification<Track> matching(TrackQuery query) {
+        Specification<Track> spec = all();
+        if (Boolean.TRUE.equals(query.getFavorites())) {
+            spec = spec.and(isFavorite());
+        }
+        if (hasText(query.getCategory())) {
+            spec = spec.and(hasCategory(query.getCategory()));
+        }
+        if (hasText(query.getSearch())) {
+            spec = spec.and(titleOrArtistContains(query.getSearch()));
+        }
+        if (hasText(query.getArtist())) {
+            spec = spec.and(artistContains(query.getArtist()));
+        }
+        if (query.getMinDuration() != null || query.getMaxDuration() != null) {
+            spec = spec.and(durationBetween(query.getMinDuration(), query.getMaxDuration()));
+        }
+        if (query.getCreatedFrom() != null || query.getCreatedTo() != null) {
+            spec = spec.and(createdBetween(query.getCreatedFrom(), query.getCreatedTo()));
+        }
+        return spec;
+    }
+
+    public static Specification<Track> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Track> isFavorite() {
+        return (root, query, cb) -> cb.isTrue(root.get("isFavorite"));
+    }
+
+    public static Specification<Track> hasCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    // Case-insensitive substring match; '%' and '_' in the text match literally
+    public static Specification<Track> titleOrArtistContains(String text) {
+        return (root, query, cb) -> {
+            String pattern = containsPattern(text);
+            return cb.or(
+                    cb.like(cb.lower(root.get("title")), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(root.get("artist")), pattern, LIKE_ESCAPE));
+        };
+    }
+
+    public static Specification<Track> artistContains(String artist) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("artist")), containsPattern(artist), LIKE_ESCAPE);
+    }
+
+    // Inclusive bounds, either may be null
+    public static Specification<Track> durationBetween(Integer min, Integer max) {
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.le(root.get("duration"), max);
+            }
+            if (max == null) {
+                return cb.ge(root.get("duration"), min);
+            }
+            return cb.between(root.get("duration"), min, max);
+        };
+    }
+
+    // Inclusive lower bound, exclusive upper bound, either may be null
+    public static Specification<Track> createdBetween(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get("createdAt"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("createdAt"), from), cb.lessThan(root.get("createdAt"), to));
+        };
+    }
+
+    private static String containsPattern(String text) {
+        String escaped = text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
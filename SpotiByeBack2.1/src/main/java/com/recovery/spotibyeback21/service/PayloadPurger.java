@@ -0,0 +1,122 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.filter.UploadAdmissionFilter;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reclaims the audio and cover payloads of deleted tracks in the background.
+ *
+ * Deleting only stamps deleted_at; this job clears audio_url and cover_image of
+ * tombstoned rows a few at a time, one short transaction per batch with a pause
+ * in between, and skips a run entirely while large uploads are in flight. The
+ * tombstone rows themselves are kept.
+ */
+@Component
+@Slf4j
+public class PayloadPurger implements MetricsSource {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UploadAdmissionFilter uploadAdmissionFilter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMs;
+
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+
+    public PayloadPurger(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            UploadAdmissionFilter uploadAdmissionFilter,
+            @Value("${spotibye.purge.batch-size:20}") int batchSize,
+            @Value("${spotibye.purge.max-batches-per-run:50}") int maxBatchesPerRun,
+            @Value("${spotibye.purge.pause-ms:200}") long pauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadAdmissionFilter = uploadAdmissionFilter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMs = pauseMs;
+    }
+
+    @Scheduled(fixedDelayString = "${spotibye.purge.interval-ms:30000}")
+    public void run() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            if (uploadAdmissionFilter.isBusy()) {
+                skippedRuns.incrementAndGet();
+                return;
+            }
+            if (purgeBatch() < batchSize) {
+                return;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Clear the payloads of the oldest unpurged tombstones
+     *
+     * @return the number of tracks purged
+     */
+    public int purgeBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM tracks WHERE deleted_at IS NOT NULL AND purged_at IS NULL ORDER BY id LIMIT ?",
+                    Long.class, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            Object[] args = new Object[ids.size() + 1];
+            args[0] = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < ids.size(); i++) {
+                args[i + 1] = ids.get(i);
+            }
+            // Bumping the version makes any entity write still holding the old payloads fail
+            return jdbcTemplate.update("UPDATE tracks SET audio_url = '', cover_image = NULL, purged_at = ?, "
+                    + "version = COALESCE(version, 0) + 1 WHERE id IN (" + placeholders + ")", args);
+        });
+        int purgedNow = count == null ? 0 : count;
+        if (purgedNow > 0) {
+            batches.incrementAndGet();
+            purged.addAndGet(purgedNow);
+            log.info("Purged payloads of {} deleted tracks", purgedNow);
+        }
+        return purgedNow;
+    }
+
+    @Override
+    public String metricsName() {
+        return "payloadPurger";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("purged", purged.get());
+        metrics.put("batches", batches.get());
+        metrics.put("skippedRuns", skippedRuns.get());
+        return metrics;
+    }
+}
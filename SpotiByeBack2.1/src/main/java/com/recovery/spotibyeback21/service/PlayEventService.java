@@ -0,0 +1,215 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffered ingestion of play events.
+ *
+ * Request threads only append to a bounded lock-free queue and never touch the
+ * database. A scheduled writer drains the queue, aggregates play counts per track
+ * in memory, applies them with one batched UPDATE and stores the raw events with
+ * multi-row INSERTs, all in a single transaction per flush. Committed counts
+ * are then fed to the trending tracker and the suggestion index.
+ */
+@Service
+@Slf4j
+public class PlayEventService implements MetricsSource {
+
+    private static final int ROWS_PER_INSERT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrendingTracker trendingTracker;
+    private final SuggestionIndex suggestionIndex;
+    private final int capacity;
+    private final int batchSize;
+    private final boolean storeEvents;
+    private final boolean drainOnShutdown;
+
+    private final ConcurrentLinkedQueue<PlayRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public PlayEventService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TrendingTracker trendingTracker,
+            SuggestionIndex suggestionIndex,
+            @Value("${spotibye.plays.capacity:100000}") int capacity,
+            @Value("${spotibye.plays.batch-size:5000}") int batchSize,
+            @Value("${spotibye.plays.store-events:true}") boolean storeEvents,
+            @Value("${spotibye.plays.drain-on-shutdown:true}") boolean drainOnShutdown) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.trendingTracker = trendingTracker;
+        this.suggestionIndex = suggestionIndex;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.storeEvents = storeEvents;
+        this.drainOnShutdown = drainOnShutdown;
+    }
+
+    /**
+     * Queue one play of a track
+     *
+     * @throws CapacityExceededException if the buffer is full
+     */
+    public void recordPlay(Long trackId) {
+        recordPlays(List.of(trackId));
+    }
+
+    /**
+     * Queue several plays at once; either all of them are accepted or none
+     *
+     * @throws CapacityExceededException if the buffer cannot take them all
+     */
+    public void recordPlays(List<Long> trackIds) {
+        int count = trackIds.size();
+        if (queued.addAndGet(count) > capacity) {
+            queued.addAndGet(-count);
+            rejected.addAndGet(count);
+            throw new CapacityExceededException("Play event buffer is full");
+        }
+        long now = System.currentTimeMillis();
+        for (Long trackId : trackIds) {
+            queue.offer(new PlayRecord(trackId, now));
+        }
+        accepted.addAndGet(count);
+    }
+
+    /**
+     * Write everything queued so far, one batch at a time
+     */
+    @Scheduled(fixedDelayString = "${spotibye.plays.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<PlayRecord> batch = new ArrayList<>(Math.min(batchSize, Math.max(queued.get(), 16)));
+        while (true) {
+            batch.clear();
+            PlayRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            queued.addAndGet(-batch.size());
+            try {
+                Map<Long, Long> counts = transactionTemplate.execute(status -> write(batch));
+                flushes.incrementAndGet();
+                trendingTracker.recordPlays(counts);
+                suggestionIndex.addPlays(counts);
+            } catch (RuntimeException e) {
+                discarded.addAndGet(batch.size());
+                log.error("Failed to write {} play events", batch.size(), e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (drainOnShutdown) {
+            flush();
+        } else if (queued.get() > 0) {
+            log.warn("Discarding {} buffered play events on shutdown", queued.get());
+        }
+    }
+
+    /**
+     * @return play counts of the tracks that exist
+     */
+    private Map<Long, Long> write(List<PlayRecord> batch) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (PlayRecord record : batch) {
+            counts.merge(record.trackId(), 1L, Long::sum);
+        }
+
+        List<Object[]> updates = new ArrayList<>(counts.size());
+        List<Long> trackIds = new ArrayList<>(counts.size());
+        counts.forEach((trackId, count) -> {
+            updates.add(new Object[] { count, trackId });
+            trackIds.add(trackId);
+        });
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE tracks SET play_count = COALESCE(play_count, 0) + ? WHERE id = ? AND deleted_at IS NULL",
+                updates);
+
+        // Plays of unknown or deleted tracks are dropped rather than stored as orphans
+        Set<Long> unknown = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                unknown.add(trackIds.get(i));
+            }
+        }
+
+        List<PlayRecord> known = unknown.isEmpty() ? batch
+                : batch.stream().filter(record -> !unknown.contains(record.trackId())).toList();
+        discarded.addAndGet(batch.size() - known.size());
+        if (storeEvents) {
+            insertEvents(known);
+        }
+        persisted.addAndGet(known.size());
+        counts.keySet().removeAll(unknown);
+        return counts;
+    }
+
+    private void insertEvents(List<PlayRecord> records) {
+        for (int from = 0; from < records.size(); from += ROWS_PER_INSERT) {
+            int to = Math.min(records.size(), from + ROWS_PER_INSERT);
+            StringBuilder sql = new StringBuilder("INSERT INTO play_events (track_id, played_at) VALUES ");
+            Object[] args = new Object[(to - from) * 2];
+            for (int i = from; i < to; i++) {
+                sql.append(i == from ? "(?, ?)" : ", (?, ?)");
+                args[(i - from) * 2] = records.get(i).trackId();
+                args[(i - from) * 2 + 1] = new Timestamp(records.get(i).playedAt());
+            }
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "playEvents";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queued", queued.get());
+        metrics.put("capacity", capacity);
+        metrics.put("accepted", accepted.get());
+        metrics.put("rejected", rejected.get());
+        metrics.put("persisted", persisted.get());
+        metrics.put("discarded", discarded.get());
+        metrics.put("flushes", flushes.get());
+        return metrics;
+    }
+
+    private record PlayRecord(Long trackId, long playedAt) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import com.recovery.spotibyeback21.repository.TrackMetadataView;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory "more like this" index.
+ *
+ * Each track is reduced to a set of tokens (category, artist, title and description
+ * words) and summarised by a MinHash signature. Signatures are split into bands for
+ * locality-sensitive hashing, so a query only scores the tracks that share at least
+ * one band with the source track instead of scanning the whole catalog.
+ * Signatures live in one flat int array indexed by slot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SimilarityIndex implements MetricsSource {
+
+    static final int NUM_HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS = NUM_HASHES / BANDS;
+    private static final int MAX_CANDIDATES = 5000;
+    private static final int MAX_DESCRIPTION_TOKENS = 40;
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_5107L).longs(NUM_HASHES).toArray();
+
+    private final TrackRepository trackRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    private long[] ids = new long[1024];
+    private int[] signatures = new int[1024 * NUM_HASHES];
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int nextSlot;
+
+    private final AtomicLong queries = new AtomicLong();
+
+    /**
+     * Build the index from the database once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<TrackMetadataView> tracks = trackRepository.findAllMetadata();
+        for (TrackMetadataView track : tracks) {
+            index(track.getId(), track.getTitle(), track.getArtist(), track.getCategory(), track.getDescription());
+        }
+        log.info("Similarity index built for {} tracks in {} ms", tracks.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackChanged(TrackChangedEvent event) {
+        if (event.getType() == TrackChangedEvent.ChangeType.DELETED) {
+            remove(event.getTrackId());
+        } else {
+            TrackDTO track = event.getTrack();
+            index(track.getId(), track.getTitle(), track.getArtist(), track.getCategory(), track.getDescription());
+        }
+    }
+
+    /**
+     * Add or replace a track in the index
+     */
+    public void index(Long id, String title, String artist, String category, String description) {
+        int[] signature = signature(tokens(title, artist, category, description));
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotsById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unlinkBuckets(slot);
+            } else {
+                slot = allocateSlot();
+                slotsById.put(id, slot);
+                ids[slot] = id;
+            }
+            System.arraycopy(signature, 0, signatures, slot * NUM_HASHES, NUM_HASHES);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(slot, band), key -> new Bucket()).add(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            unlinkBuckets(slot);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the tracks most similar to the given one, best first
+     *
+     * @return null if the track is not indexed
+     */
+    public List<Long> findSimilar(Long id, int k) {
+        queries.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            Integer source = slotsById.get(id);
+            if (source == null) {
+                return null;
+            }
+
+            Set<Integer> candidates = new LinkedHashSet<>();
+            for (int band = 0; band < BANDS && candidates.size() < MAX_CANDIDATES; band++) {
+                Bucket bucket = buckets.get(bandKey(source, band));
+                for (int i = 0; i < bucket.size && candidates.size() < MAX_CANDIDATES; i++) {
+                    if (bucket.slots[i] != source) {
+                        candidates.add(bucket.slots[i]);
+                    }
+                }
+            }
+
+            // Pack (score, slot) into one long so ranking needs no boxing comparator
+            long[] ranked = new long[candidates.size()];
+            int n = 0;
+            for (int candidate : candidates) {
+                ranked[n++] = ((long) agreement(source, candidate) << 32) | (Integer.MAX_VALUE - candidate);
+            }
+            Arrays.sort(ranked);
+
+            List<Long> result = new ArrayList<>(Math.min(k, n));
+            for (int i = n - 1; i >= 0 && result.size() < k; i--) {
+                result.add(ids[Integer.MAX_VALUE - (int) ranked[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "similarityIndex";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            metrics.put("tracks", slotsById.size());
+            metrics.put("buckets", buckets.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("queries", queries.get());
+        return metrics;
+    }
+
+    private int agreement(int a, int b) {
+        int matches = 0;
+        int offsetA = a * NUM_HASHES;
+        int offsetB = b * NUM_HASHES;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (signatures[offsetA + i] == signatures[offsetB + i]) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextSlot == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            signatures = Arrays.copyOf(signatures, ids.length * NUM_HASHES);
+        }
+        return nextSlot++;
+    }
+
+    private void unlinkBuckets(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(slot, band);
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(slot) && bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private long bandKey(int slot, int band) {
+        long key = band;
+        int offset = slot * NUM_HASHES + band * ROWS;
+        for (int row = 0; row < ROWS; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signatures[offset + row];
+        }
+        return mix64(key);
+    }
+
+    static Set<String> tokens(String title, String artist, String category, String description) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (category != null && !category.isBlank()) {
+            tokens.add("c:" + category.trim().toLowerCase(Locale.ROOT));
+        }
+        if (artist != null && !artist.isBlank()) {
+            tokens.add("a:" + artist.trim().toLowerCase(Locale.ROOT));
+        }
+        addWords(tokens, "w:", artist, Integer.MAX_VALUE);
+        addWords(tokens, "w:", title, Integer.MAX_VALUE);
+        addWords(tokens, "d:", description, MAX_DESCRIPTION_TOKENS);
+        return tokens;
+    }
+
+    private static void addWords(Set<String> tokens, String prefix, String text, int limit) {
+        if (text == null) {
+            return;
+        }
+        int added = 0;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() > 1 && added++ < limit) {
+                tokens.add(prefix + word);
+            }
+        }
+    }
+
+    static int[] signature(Set<String> tokens) {
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = fnv1a(token);
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) (mix64(base ^ SEEDS[i]) >>> 32);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Bucket {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads.
+ *
+ * The first caller for an operation and argument runs the loader on its own
+ * thread; callers arriving while it runs wait for the same future and get its
+ * result, or its exception. Nothing is kept once the load finishes. Owners of
+ * the data call forget when it changes, so a caller arriving after a change
+ * starts a fresh load instead of joining one that may have read the old state.
+ * Callers should not hold a transaction while they wait, or every waiter pins
+ * a pooled connection.
+ */
+@Component
+public class SingleFlight implements MetricsSource {
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong forgotten = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object argument, Supplier<T> loader) {
+        Key key = new Key(operation, argument);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return (T) await(running);
+        }
+
+        loads.incrementAndGet();
+        try {
+            T value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Let later callers start a new load instead of joining the running one
+     */
+    public void forget(String operation, Object argument) {
+        if (inFlight.remove(new Key(operation, argument)) != null) {
+            forgotten.incrementAndGet();
+        }
+    }
+
+    /**
+     * Forget every running load of the operation, whatever its argument
+     */
+    public void forget(String operation) {
+        inFlight.keySet().removeIf(key -> {
+            boolean matches = key.operation().equals(operation);
+            if (matches) {
+                forgotten.incrementAndGet();
+            }
+            return matches;
+        });
+    }
+
+    @Override
+    public String metricsName() {
+        return "singleFlight";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("loads", loads.get());
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("forgotten", forgotten.get());
+        return metrics;
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception as is, so waiters see the same error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(String operation, Object argument) {
+    }
+}
@@ -0,0 +1,445 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.SuggestionDTO;
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import com.recovery.spotibyeback21.repository.TrackPopularityView;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index for search-box autocomplete.
+ *
+ * Titles and artists are normalized (lower case, no accents, single spaces) and
+ * inserted into a trie under their full text and under each later word, so "beat"
+ * also finds "The Beatles". Every node keeps the best {@link #TOP_K} entries of its
+ * subtree ranked by play count, so a lookup is one walk down the prefix. A change
+ * only recomputes the nodes on the changed entry's own key paths, bottom-up, by
+ * merging the children's top lists.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionIndex implements MetricsSource {
+
+    static final int TOP_K = 10;
+    static final int MAX_KEY_LENGTH = 48;
+    private static final int MAX_WORD_STARTS = 6;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final TrackRepository trackRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, TrackRef> tracks = new HashMap<>();
+    private final Map<String, Entry> artists = new HashMap<>();
+    private int nodes = 1;
+
+    private final AtomicLong queries = new AtomicLong();
+
+    /**
+     * Build the index from the database once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<TrackPopularityView> all = trackRepository.findAllPopularity();
+        for (TrackPopularityView track : all) {
+            index(track.getId(), track.getTitle(), track.getArtist(),
+                    track.getPlayCount() == null ? 0 : track.getPlayCount());
+        }
+        log.info("Suggestion index built for {} tracks in {} ms", all.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackChanged(TrackChangedEvent event) {
+        if (event.getType() == TrackChangedEvent.ChangeType.DELETED) {
+            remove(event.getTrackId());
+        } else {
+            TrackDTO track = event.getTrack();
+            index(track.getId(), track.getTitle(), track.getArtist(), -1);
+        }
+    }
+
+    /**
+     * Add or replace a track
+     *
+     * @param plays play count, or a negative value to keep the indexed count
+     */
+    public void index(Long id, String title, String artist, long plays) {
+        lock.writeLock().lock();
+        try {
+            TrackRef existing = tracks.get(id);
+            if (plays < 0) {
+                plays = existing != null ? existing.plays : 0;
+            }
+            if (existing != null) {
+                if (Objects.equals(existing.title.text, title) && Objects.equals(existing.artist.text, artist)
+                        && existing.plays == plays) {
+                    return;
+                }
+                unlink(id, existing);
+            }
+
+            Entry titleEntry = new Entry(title, normalize(title), id, plays);
+            attach(titleEntry);
+
+            String artistKey = normalize(artist);
+            Entry artistEntry = artists.get(artistKey);
+            if (artistEntry == null) {
+                artistEntry = new Entry(artist, artistKey, null, plays);
+                artists.put(artistKey, artistEntry);
+                attach(artistEntry);
+            } else if (plays != 0) {
+                rescore(artistEntry, artistEntry.score + plays);
+            }
+            artistEntry.refs++;
+
+            tracks.put(id, new TrackRef(titleEntry, artistEntry, plays));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            TrackRef existing = tracks.get(id);
+            if (existing != null) {
+                unlink(id, existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add committed plays to the popularity of the tracks and their artists
+     */
+    public void addPlays(Map<Long, Long> playsByTrack) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Long> plays : playsByTrack.entrySet()) {
+                TrackRef track = tracks.get(plays.getKey());
+                if (track == null || plays.getValue() == 0) {
+                    continue;
+                }
+                track.plays += plays.getValue();
+                rescore(track.title, track.plays);
+                rescore(track.artist, track.artist.score + plays.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Most popular titles and artists matching the prefix, best first
+     */
+    public List<SuggestionDTO> suggest(String prefix, int k) {
+        queries.incrementAndGet();
+        String key = truncate(normalize(prefix));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            int n = Math.min(k, node.top.length);
+            List<SuggestionDTO> suggestions = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Entry entry = node.top[i];
+                suggestions.add(new SuggestionDTO(entry.text, entry.trackId != null ? "title" : "artist", entry.trackId));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "suggestionIndex";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            metrics.put("tracks", tracks.size());
+            metrics.put("artists", artists.size());
+            metrics.put("nodes", nodes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("queries", queries.get());
+        return metrics;
+    }
+
+    private void unlink(Long id, TrackRef track) {
+        tracks.remove(id);
+        detach(track.title);
+        Entry artist = track.artist;
+        if (--artist.refs == 0) {
+            artists.remove(artist.normalized);
+            detach(artist);
+        } else if (track.plays != 0) {
+            rescore(artist, artist.score - track.plays);
+        }
+    }
+
+    private void attach(Entry entry) {
+        for (String key : keys(entry.normalized)) {
+            Node[] path = path(key, true);
+            Node end = path[key.length()];
+            end.terminal = Arrays.copyOf(end.terminal, end.terminal.length + 1);
+            end.terminal[end.terminal.length - 1] = entry;
+            recompute(path, key);
+        }
+    }
+
+    private void detach(Entry entry) {
+        for (String key : keys(entry.normalized)) {
+            Node[] path = path(key, false);
+            if (path == null) {
+                continue;
+            }
+            Node end = path[key.length()];
+            end.terminal = without(end.terminal, entry);
+            recompute(path, key);
+        }
+    }
+
+    private void rescore(Entry entry, long score) {
+        entry.score = score;
+        for (String key : keys(entry.normalized)) {
+            Node[] path = path(key, false);
+            if (path != null) {
+                recompute(path, key);
+            }
+        }
+    }
+
+    /**
+     * Nodes from the root to the end of the key, or null if the key is absent and create is false
+     */
+    private Node[] path(String key, boolean create) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = path[i].child(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return null;
+                }
+                next = path[i].addChild(key.charAt(i));
+                nodes++;
+            }
+            path[i + 1] = next;
+        }
+        return path;
+    }
+
+    /**
+     * Refresh top lists from the end of the key up to the root, dropping nodes left empty
+     */
+    private void recompute(Node[] path, String key) {
+        for (int depth = key.length(); depth >= 0; depth--) {
+            Node node = path[depth];
+            if (depth > 0 && node.terminal.length == 0 && node.keys.length == 0) {
+                path[depth - 1].removeChild(key.charAt(depth - 1));
+                nodes--;
+                continue;
+            }
+            node.top = best(node);
+        }
+    }
+
+    private static Entry[] best(Node node) {
+        Entry[] best = new Entry[TOP_K];
+        int size = 0;
+        for (Entry entry : node.terminal) {
+            size = offer(best, size, entry);
+        }
+        for (Node child : node.children) {
+            for (Entry entry : child.top) {
+                size = offer(best, size, entry);
+            }
+        }
+        return size == TOP_K ? best : Arrays.copyOf(best, size);
+    }
+
+    // Insert into the sorted array if it ranks high enough and is not there yet
+    private static int offer(Entry[] best, int size, Entry entry) {
+        for (int i = 0; i < size; i++) {
+            if (best[i] == entry) {
+                return size;
+            }
+        }
+        if (size == best.length && !ranksBefore(entry, best[size - 1])) {
+            return size;
+        }
+        int position = Math.min(size, best.length - 1);
+        while (position > 0 && ranksBefore(entry, best[position - 1])) {
+            best[position] = best[position - 1];
+            position--;
+        }
+        best[position] = entry;
+        return Math.min(size + 1, best.length);
+    }
+
+    private static boolean ranksBefore(Entry a, Entry b) {
+        if (a.score != b.score) {
+            return a.score > b.score;
+        }
+        return a.normalized.compareTo(b.normalized) < 0;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The full text and the text from each later word start, truncated
+     */
+    static Set<String> keys(String normalized) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(truncate(normalized));
+        int from = 0;
+        for (int starts = 0; starts < MAX_WORD_STARTS; starts++) {
+            int space = normalized.indexOf(' ', from);
+            if (space < 0 || space + 1 >= normalized.length()) {
+                break;
+            }
+            from = space + 1;
+            keys.add(truncate(normalized.substring(from)));
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static final class Entry {
+        final String text;
+        final String normalized;
+        final Long trackId;
+        long score;
+        int refs;
+
+        Entry(String text, String normalized, Long trackId, long score) {
+            this.text = text;
+            this.normalized = normalized;
+            this.trackId = trackId;
+            this.score = score;
+        }
+    }
+
+    private static final class TrackRef {
+        final Entry title;
+        final Entry artist;
+        long plays;
+
+        TrackRef(Entry title, Entry artist, long plays) {
+            this.title = title;
+            this.artist = artist;
+            this.plays = plays;
+        }
+    }
+
+    // Children are kept in parallel arrays sorted by character
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Entry[] terminal = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = -Arrays.binarySearch(keys, c) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            Node child = new Node();
+            newKeys[i] = c;
+            newChildren[i] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
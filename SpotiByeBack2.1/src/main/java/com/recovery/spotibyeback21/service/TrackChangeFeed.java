@@ -0,0 +1,107 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.TrackChangesDTO;
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.repository.TrackChange;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Delta sync: the tracks changed since a client's last sync.
+ *
+ * Every write stamps the touched rows with a number from the track_change_seq
+ * sequence, deletions included, so the feed is an index range scan on change_seq
+ * from the client's token. A sequence number is drawn before its transaction
+ * commits, so a lower number can become visible after a higher one. Changes
+ * younger than the settle time are therefore held back, and the token never
+ * moves past them. TrackChangeStamper stamps rows just before commit, so only the
+ * commit itself has to finish within that time, not the whole transaction.
+ */
+@Service
+@Slf4j
+public class TrackChangeFeed {
+
+    private final TrackRepository trackRepository;
+    private final long settleMs;
+    private final Supplier<LocalDateTime> clock;
+
+    @Autowired
+    public TrackChangeFeed(
+            TrackRepository trackRepository,
+            @Value("${spotibye.sync.settle-ms:2000}") long settleMs) {
+        this(trackRepository, settleMs, LocalDateTime::now);
+    }
+
+    TrackChangeFeed(TrackRepository trackRepository, long settleMs, Supplier<LocalDateTime> clock) {
+        this.trackRepository = trackRepository;
+        this.settleMs = settleMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Number the tracks written before change tracking existed, so a first sync sees them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void sequenceExistingTracks() {
+        int sequenced = trackRepository.markUnsequenced();
+        if (sequenced > 0) {
+            log.info("Assigned change sequence numbers to {} existing tracks", sequenced);
+        }
+    }
+
+    /**
+     * Get up to limit changes after the token; a null or empty token starts from the beginning
+     */
+    @Transactional(readOnly = true)
+    public TrackChangesDTO getChanges(String token, int limit) {
+        long since = parseToken(token);
+        LocalDateTime settledBefore = clock.get().minusNanos(settleMs * 1_000_000);
+        List<TrackChange> changes = trackRepository.findChangesSince(since, limit);
+
+        List<TrackDTO> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long last = since;
+        boolean settled = true;
+        for (TrackChange change : changes) {
+            if (change.changedAt() != null && change.changedAt().isAfter(settledBefore)) {
+                settled = false;
+                break;
+            }
+            if (change.isDeleted()) {
+                deleted.add(change.id());
+            } else {
+                changed.add(change.track());
+            }
+            last = change.changeSeq();
+        }
+        return new TrackChangesDTO(changed, deleted, String.valueOf(last), settled && changes.size() == limit);
+    }
+
+    private static long parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            long since = Long.parseLong(token.trim());
+            if (since >= 0) {
+                return since;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        throw new InvalidRequestException("Invalid sync token: " + token);
+    }
+}
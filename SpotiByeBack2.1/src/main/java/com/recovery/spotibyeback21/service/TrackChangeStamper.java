@@ -0,0 +1,75 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stamps written tracks for the change feed as the last step before commit.
+ *
+ * TrackChangeFeed holds back changes younger than the settle time, which is only
+ * safe if a stamp becomes visible within that time. Stamping when a row is written
+ * would start the clock at the beginning of a long bulk delete or import batch;
+ * deferring it to beforeCommit leaves only the final flush and commit in between,
+ * however long the transaction ran.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackChangeStamper {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TrackRepository trackRepository;
+
+    /**
+     * Stamp the tracks when the current transaction commits
+     */
+    public void stampOnCommit(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stamp(ids);
+            return;
+        }
+        PendingStamps pending = (PendingStamps) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingStamps();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.ids.addAll(ids);
+    }
+
+    private void stamp(Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            trackRepository.markChanged(all.subList(from, Math.min(from + CHUNK_SIZE, all.size())), now);
+        }
+    }
+
+    private class PendingStamps implements TransactionSynchronization {
+
+        private final Set<Long> ids = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            stamp(ids);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TrackChangeStamper.this);
+        }
+    }
+}
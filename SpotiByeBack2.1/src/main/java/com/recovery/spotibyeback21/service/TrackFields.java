@@ -0,0 +1,49 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses and validates the ?fields= selection of the track endpoints.
+ * Field names are the JSON property names, which match the Track attributes.
+ */
+public final class TrackFields {
+
+    public static final List<String> SUMMARY_FIELDS = List.of(
+            "id", "title", "artist", "category", "description", "coverImage",
+            "duration", "isFavorite", "createdAt", "updatedAt");
+
+    public static final List<String> DETAIL_FIELDS = List.of(
+            "id", "title", "artist", "category", "description", "audioUrl", "coverImage",
+            "duration", "isFavorite", "createdAt", "updatedAt");
+
+    private TrackFields() {
+    }
+
+    /**
+     * @param fields comma-separated field names
+     * @param allowed the fields the endpoint exposes
+     * @return the requested fields in request order, without duplicates
+     * @throws InvalidRequestException if the selection is empty or names an unknown field
+     */
+    public static Set<String> parse(String fields, List<String> allowed) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                throw new InvalidRequestException("Unknown field: " + name + " (allowed: " + String.join(",", allowed) + ")");
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidRequestException("fields must name at least one of: " + String.join(",", allowed));
+        }
+        return selected;
+    }
+}
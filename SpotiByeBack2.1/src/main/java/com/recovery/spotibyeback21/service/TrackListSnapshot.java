@@ -0,0 +1,191 @@
+package com.recovery.spotibyeback21.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recovery.spotibyeback21.cache.InvalidationBus;
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-encoded body of the unfiltered GET /api/tracks response.
+ *
+ * The full list is serialized once, gzipped once and published as an immutable
+ * snapshot. Any local or remote track change drops the snapshot immediately (callers
+ * fall back to the live query) and schedules a debounced rebuild on a background
+ * thread, so a burst of mutations costs a single rebuild. A rebuild that overlaps
+ * with another change is discarded.
+ */
+@Component
+@Slf4j
+public class TrackListSnapshot implements MetricsSource {
+
+    private final TrackService trackService;
+    private final ObjectMapper objectMapper;
+    private final InvalidationBus invalidationBus;
+    private final long debounceMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "track-list-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile Snapshot current;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong discardedBuilds = new AtomicLong();
+
+    public TrackListSnapshot(
+            TrackService trackService,
+            ObjectMapper objectMapper,
+            InvalidationBus invalidationBus,
+            @Value("${spotibye.snapshot.debounce-ms:250}") long debounceMs) {
+        this.trackService = trackService;
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        this.debounceMs = debounceMs;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(notices -> invalidate());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Current snapshot, or null while it is being rebuilt
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        (snapshot != null ? hits : misses).incrementAndGet();
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackChanged(TrackChangedEvent event) {
+        invalidate();
+    }
+
+    void invalidate() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            current = null;
+        }
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            executor.schedule(this::rebuildSafely, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuildSafely() {
+        rebuildPending.set(false);
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to rebuild track list snapshot", e);
+        }
+    }
+
+    /**
+     * Build and publish a snapshot unless a change happened while building
+     *
+     * @return true if the snapshot was published
+     */
+    public boolean rebuild() throws IOException {
+        long startGeneration = generation.get();
+        long start = System.currentTimeMillis();
+        List<TrackDTO> tracks = trackService.getAllTracks();
+        byte[] json = objectMapper.writeValueAsBytes(tracks);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(json);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        Snapshot snapshot = new Snapshot(json, gzipped.toByteArray(),
+                "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(json.length) + "\"",
+                tracks.size(), Instant.now());
+
+        synchronized (this) {
+            if (generation.get() != startGeneration) {
+                discardedBuilds.incrementAndGet();
+                return false;
+            }
+            current = snapshot;
+        }
+        builds.incrementAndGet();
+        log.info("Track list snapshot built for {} tracks ({} bytes, {} gzipped) in {} ms",
+                snapshot.trackCount(), json.length, snapshot.gzip().length, System.currentTimeMillis() - start);
+        return true;
+    }
+
+    @Override
+    public String metricsName() {
+        return "trackListSnapshot";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Snapshot snapshot = current;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", snapshot != null);
+        metrics.put("tracks", snapshot != null ? snapshot.trackCount() : 0);
+        metrics.put("jsonBytes", snapshot != null ? snapshot.json().length : 0);
+        metrics.put("gzipBytes", snapshot != null ? snapshot.gzip().length : 0);
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("builds", builds.get());
+        metrics.put("discardedBuilds", discardedBuilds.get());
+        return metrics;
+    }
+
+    /**
+     * Immutable encoded response; the arrays must not be modified
+     */
+    public record Snapshot(byte[] json, byte[] gzip, String etag, int trackCount, Instant builtAt) {
+
+        /**
+         * Entity tag of the gzip coding; it must differ from the identity one
+         */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+    }
+}
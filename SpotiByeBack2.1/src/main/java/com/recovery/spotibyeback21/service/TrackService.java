@@ -1,19 +1,46 @@
 package com.recovery.spotibyeback21.service;
 
+import com.recovery.spotibyeback21.audio.DecodedAudio;
+import com.recovery.spotibyeback21.cache.AudioCache;
+import com.recovery.spotibyeback21.cache.ChangeNotice;
+import com.recovery.spotibyeback21.cache.InvalidationBus;
+import com.recovery.spotibyeback21.cache.TrackCache;
 import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.SuggestionDTO;
 import com.recovery.spotibyeback21.dto.TrackDTO;
 import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.TrackQuery;
 import com.recovery.spotibyeback21.dto.UpdateTrackDTO;
 import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.event.TrackFavoritedEvent;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
 import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
 import com.recovery.spotibyeback21.mapper.TrackMapper;
+import com.recovery.spotibyeback21.repository.TrackAudioView;
 import com.recovery.spotibyeback21.repository.TrackRepository;
+import com.recovery.spotibyeback21.repository.TrackSpecifications;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,31 +49,87 @@ import java.util.stream.Collectors;
 @Transactional
 public class TrackService {
 
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final String GET_TRACK_BY_ID = "getTrackById";
+    private static final String FIND_TRACKS = "findTracks";
+    // Each detail carries the whole audio payload; larger batches would flood the heap and the track cache
+    static final int MAX_DETAIL_BATCH = 50;
+
     private final TrackRepository trackRepository;
     private final TrackMapper trackMapper;
+    private final SimilarityIndex similarityIndex;
+    private final TrendingTracker trendingTracker;
+    private final SuggestionIndex suggestionIndex;
+    private final TrackCache trackCache;
+    private final SingleFlight singleFlight;
+    private final InvalidationBus invalidationBus;
+    private final AudioCache audioCache;
+    private final TrackChangeStamper changeStamper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(this::onNotices);
+    }
 
     /**
      * Get all tracks
      */
     @Transactional(readOnly = true)
     public List<TrackDTO> getAllTracks() {
-        log.info("Fetching all tracks");
-        return trackRepository.findAll()
-                .stream()
-                .map(trackMapper::toDTO)
-                .collect(Collectors.toList());
+        log.debug("Fetching all tracks");
+        // Summary columns only; the audio payload is never needed for the list
+        return trackRepository.findSummaries(TrackSpecifications.all(), Sort.unsorted());
     }
 
     /**
      * Get track by ID
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public TrackDetailDTO getTrackById(Long id) {
-        log.info("Fetching track with ID: {}", id);
+        log.debug("Fetching track with ID: {}", id);
+        TrackDetailDTO cached = trackCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        // Concurrent misses for the same track share one query
+        return singleFlight.execute(GET_TRACK_BY_ID, id, () -> loadTrackDetail(id));
+    }
+
+    private TrackDetailDTO loadTrackDetail(Long id) {
         Track track = trackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Track not found with ID: " + id));
         // Return full detail for single fetch
-        return trackMapper.toDetailDTO(track);
+        TrackDetailDTO detail = trackMapper.toDetailDTO(track);
+        if (detail != null) {
+            trackCache.put(id, track.getVersion() == null ? 0L : track.getVersion(), detail);
+        }
+        return detail;
+    }
+
+    /**
+     * Get the decoded audio of a track, from the audio cache when it is there
+     */
+    @Transactional(readOnly = true)
+    public DecodedAudio getTrackAudio(Long id) {
+        DecodedAudio cached = audioCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        TrackAudioView view = trackRepository.findAudioById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Track not found with ID: " + id));
+        long size = DecodedAudio.decodedSize(view.getAudioUrl());
+        // Only audio the cache will keep is worth decoding off-heap
+        boolean cacheable = size >= 0 && audioCache.wouldAdmit(id, size);
+        DecodedAudio audio = DecodedAudio.fromDataUrl(view.getAudioUrl(),
+                view.getVersion() == null ? 0L : view.getVersion(), cacheable);
+        if (audio == null) {
+            throw new ResourceNotFoundException("Track has no embedded audio: " + id);
+        }
+        if (cacheable) {
+            audioCache.put(id, audio);
+        }
+        return audio;
     }
 
     /**
@@ -54,10 +137,19 @@ public class TrackService {
      */
     public TrackDetailDTO createTrack(CreateTrackDTO createTrackDTO) {
         log.info("Creating new track: {}", createTrackDTO.getTitle());
-        Track track = trackMapper.toEntity(createTrackDTO);
-        Track savedTrack = trackRepository.save(track);
-        // Return full detail so frontend can play immediately
-        return trackMapper.toDetailDTO(savedTrack);
+        try {
+            Track track = trackMapper.toEntity(createTrackDTO);
+            Track savedTrack = trackRepository.save(track);
+            markChanged(savedTrack.getId());
+            // Return full detail so frontend can play immediately
+            TrackDetailDTO created = trackMapper.toDetailDTO(savedTrack);
+            eventPublisher.publishEvent(TrackChangedEvent.created(created, savedTrack.getVersion()));
+            return created;
+        } finally {
+            if (createTrackDTO.getAudioPayload() != null) {
+                createTrackDTO.getAudioPayload().close();
+            }
+        }
     }
 
     /**
@@ -87,8 +179,12 @@ public class TrackService {
             track.setIsFavorite(updateTrackDTO.getIsFavorite());
         }
 
-        Track updatedTrack = trackRepository.save(track);
-        return trackMapper.toDTO(updatedTrack);
+        // Flushed now so the event carries the version Hibernate bumped; a concurrent writer makes this fail
+        Track updatedTrack = trackRepository.saveAndFlush(track);
+        markChanged(id);
+        TrackDTO updated = trackMapper.toDTO(updatedTrack);
+        eventPublisher.publishEvent(TrackChangedEvent.updated(updated, updatedTrack.getVersion()));
+        return updated;
     }
 
     /**
@@ -96,10 +192,37 @@ public class TrackService {
      */
     public void deleteTrack(Long id) {
         log.info("Deleting track with ID: {}", id);
-        if (!trackRepository.existsById(id)) {
+        LocalDateTime now = LocalDateTime.now();
+        if (trackRepository.softDeleteById(id, now) == 0) {
             throw new ResourceNotFoundException("Track not found with ID: " + id);
         }
-        trackRepository.deleteById(id);
+        changeStamper.stampOnCommit(List.of(id));
+        eventPublisher.publishEvent(TrackChangedEvent.deleted(id));
+    }
+
+    /**
+     * Delete many tracks; unknown or already deleted IDs are skipped
+     *
+     * @return the number of tracks deleted
+     */
+    public int deleteTracks(Collection<Long> ids) {
+        log.info("Deleting {} tracks", ids.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        int deleted = 0;
+        for (int from = 0; from < distinct.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinct.size()));
+            List<Long> live = trackRepository.findIdsByIdIn(chunk);
+            if (live.isEmpty()) {
+                continue;
+            }
+            deleted += trackRepository.softDeleteByIdIn(live, now);
+            changeStamper.stampOnCommit(live);
+            for (Long id : live) {
+                eventPublisher.publishEvent(TrackChangedEvent.deleted(id));
+            }
+        }
+        return deleted;
     }
 
     /**
@@ -109,44 +232,173 @@ public class TrackService {
         log.info("Toggling favorite for track ID: {}", id);
         Track track = trackRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Track not found with ID: " + id));
-        track.setIsFavorite(!track.getIsFavorite());
-        Track updatedTrack = trackRepository.save(track);
-        return trackMapper.toDTO(updatedTrack);
+        boolean wasFavorite = Boolean.TRUE.equals(track.getIsFavorite());
+        track.setIsFavorite(!wasFavorite);
+        Track updatedTrack = trackRepository.saveAndFlush(track);
+        markChanged(id);
+        TrackDTO updated = trackMapper.toDTO(updatedTrack);
+        eventPublisher.publishEvent(TrackChangedEvent.updated(updated, updatedTrack.getVersion()));
+        if (!wasFavorite) {
+            // Counted towards trending only after commit, so a rolled-back toggle adds nothing
+            eventPublisher.publishEvent(new TrackFavoritedEvent(id));
+        }
+        return updated;
+    }
+
+    /**
+     * Find tracks matching every filter of the query, in the requested order
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<TrackDTO> findTracks(TrackQuery query) {
+        log.debug("Querying tracks: {}", query);
+        return singleFlight.execute(FIND_TRACKS, query, () ->
+                trackRepository.findSummaries(toSpecification(query), TrackSorts.parse(query.getSort())));
     }
 
     /**
-     * Get favorite tracks
+     * Get only the selected fields of the tracks matching the query
      */
     @Transactional(readOnly = true)
-    public List<TrackDTO> getFavoriteTracks() {
-        log.info("Fetching favorite tracks");
-        return trackRepository.findByIsFavoriteTrue()
-                .stream()
-                .map(trackMapper::toDTO)
-                .collect(Collectors.toList());
+    public List<Map<String, Object>> getTrackFields(TrackQuery query, Set<String> fields) {
+        log.debug("Fetching fields {} of tracks: {}", fields, query);
+        return trackRepository.findFields(toSpecification(query), TrackSorts.parse(query.getSort()), fields);
     }
 
     /**
-     * Get tracks by category
+     * Get only the selected fields of one track
      */
     @Transactional(readOnly = true)
-    public List<TrackDTO> getTracksByCategory(String category) {
-        log.info("Fetching tracks for category: {}", category);
-        return trackRepository.findByCategory(category)
-                .stream()
-                .map(trackMapper::toDTO)
+    public Map<String, Object> getTrackFieldsById(Long id, Set<String> fields) {
+        log.debug("Fetching fields {} of track with ID: {}", fields, id);
+        return trackRepository.findFieldsById(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("Track not found with ID: " + id));
+    }
+
+    /**
+     * Autocomplete titles and artists by prefix, most played first
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Get tracks by ID in the requested order, with audio when detail is set.
+     * Unknown IDs are skipped and repeated IDs are repeated.
+     */
+    @Transactional(readOnly = true)
+    public List<TrackDTO> getTracksByIds(List<Long> ids, boolean detail) {
+        log.debug("Fetching {} tracks by ID, detail: {}", ids.size(), detail);
+        if (!detail) {
+            return findSummariesInOrder(ids);
+        }
+        if (new HashSet<>(ids).size() > MAX_DETAIL_BATCH) {
+            throw new InvalidRequestException("At most " + MAX_DETAIL_BATCH
+                    + " tracks per detail batch; fetch summaries and load audio from /api/tracks/{id}/audio");
+        }
+
+        Map<Long, TrackDetailDTO> byId = new HashMap<>();
+        for (Long id : ids) {
+            TrackDetailDTO cached = trackCache.get(id);
+            if (cached != null) {
+                byId.put(id, cached);
+            }
+        }
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(byId.keySet());
+        if (!missing.isEmpty()) {
+            for (Track track : trackRepository.findAllById(missing)) {
+                TrackDetailDTO dto = trackMapper.toDetailDTO(track);
+                trackCache.put(track.getId(), track.getVersion() == null ? 0L : track.getVersion(), dto);
+                byId.put(track.getId(), dto);
+            }
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Search tracks by query (title or artist)
+     * Get the tracks most similar to the given one, best match first
+     */
+    @Transactional(readOnly = true)
+    public List<TrackDTO> getSimilarTracks(Long id, int limit) {
+        log.debug("Fetching {} tracks similar to ID: {}", limit, id);
+        List<Long> similarIds = similarityIndex.findSimilar(id, limit);
+        if (similarIds == null) {
+            throw new ResourceNotFoundException("Track not found with ID: " + id);
+        }
+        return findSummariesInOrder(similarIds);
+    }
+
+    /**
+     * Get the most played and favorited tracks in a recent time window
      */
     @Transactional(readOnly = true)
-    public List<TrackDTO> searchTracks(String query) {
-        log.info("Searching tracks with query: {}", query);
-        return trackRepository.findByTitleContainingIgnoreCaseOrArtistContainingIgnoreCase(query, query)
+    public List<TrackDTO> getTrendingTracks(String window, int limit) {
+        log.debug("Fetching {} trending tracks for window: {}", limit, window);
+        List<Long> trendingIds = trendingTracker.top(TrendingTracker.Window.fromLabel(window), limit);
+        return findSummariesInOrder(trendingIds);
+    }
+
+    private static Specification<Track> toSpecification(TrackQuery query) {
+        if (query.getMinDuration() != null && query.getMaxDuration() != null
+                && query.getMinDuration() > query.getMaxDuration()) {
+            throw new InvalidRequestException("minDuration must not be greater than maxDuration");
+        }
+        if (query.getCreatedFrom() != null && query.getCreatedTo() != null
+                && query.getCreatedFrom().isAfter(query.getCreatedTo())) {
+            throw new InvalidRequestException("createdFrom must not be after createdTo");
+        }
+        return TrackSpecifications.matching(query);
+    }
+
+    /**
+     * Load track DTOs without audio, in the order of the given IDs; unknown IDs are skipped
+     */
+    private List<TrackDTO> findSummariesInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TrackDTO> byId = trackRepository.findSummariesByIdIn(ids)
                 .stream()
-                .map(trackMapper::toDTO)
+                .collect(Collectors.toMap(TrackDTO::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Loads running when a change commits may have read the old state; later reads must not join them
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onTrackChanged(TrackChangedEvent event) {
+        forgetLoads(event.getTrackId());
+    }
+
+    void onNotices(List<ChangeNotice> notices) {
+        for (ChangeNotice notice : notices) {
+            forgetLoads(notice.isEverything() ? null : notice.getTrackId());
+        }
+    }
+
+    // A null ID stands for every track
+    private void forgetLoads(Long id) {
+        if (id == null) {
+            singleFlight.forget(GET_TRACK_BY_ID);
+        } else {
+            singleFlight.forget(GET_TRACK_BY_ID, id);
+        }
+        // Any change can add a track to or drop it from a query result
+        singleFlight.forget(FIND_TRACKS);
+    }
+
+    /**
+     * Put a written track at the head of the change feed
+     */
+    private void markChanged(Long id) {
+        changeStamper.stampOnCommit(List.of(id));
+    }
 }
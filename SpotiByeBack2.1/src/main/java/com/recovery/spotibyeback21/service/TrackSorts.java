@@ -0,0 +1,44 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the ?sort= order of the track list, e.g. "artist,-createdAt"
+ */
+public final class TrackSorts {
+
+    public static final List<String> SORTABLE_FIELDS = List.of(
+            "id", "title", "artist", "category", "duration", "isFavorite", "createdAt", "updatedAt");
+
+    private TrackSorts() {
+    }
+
+    /**
+     * @throws InvalidRequestException if a field is not sortable
+     */
+    public static Sort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String part : sort.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            boolean descending = name.startsWith("-");
+            if (descending) {
+                name = name.substring(1);
+            }
+            if (!SORTABLE_FIELDS.contains(name)) {
+                throw new InvalidRequestException("Cannot sort by: " + name + " (allowed: " + String.join(",", SORTABLE_FIELDS) + ")");
+            }
+            orders.add(descending ? Sort.Order.desc(name) : Sort.Order.asc(name));
+        }
+        return Sort.by(orders);
+    }
+}
@@ -0,0 +1,432 @@
+package com.recovery.spotibyeback21.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.ImportProgressDTO;
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import com.recovery.spotibyeback21.filter.UploadAdmissionFilter;
+import com.recovery.spotibyeback21.mapper.TrackMapper;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk export and import of the library as NDJSON, one TrackDetailDTO per line.
+ *
+ * Export walks the tracks table through a database cursor and detaches every entity
+ * once written, so memory stays flat whatever the library size. Import parses the
+ * body incrementally and commits in batches bounded by count and payload bytes;
+ * each batch reserves its payload bytes from the upload admission budget while it
+ * is held, and only a few imports run at once. Progress is kept per import ID as a
+ * count of records: a failed import can be resumed by posting the same stream again
+ * with that ID, and already committed records are skipped without being bound.
+ * Finished imports are forgotten once idle for the job TTL.
+ */
+@Service
+@Slf4j
+public class TrackTransferService {
+
+    public static final String NDJSON_ENTRY = "tracks.ndjson";
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final TrackRepository trackRepository;
+    private final TrackMapper trackMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TrackChangeStamper changeStamper;
+    private final UploadAdmissionFilter uploadAdmissionFilter;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final int batchSize;
+    private final long batchBytes;
+    private final Semaphore importSlots;
+    private final long jobTtlMs;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public TrackTransferService(
+            TrackRepository trackRepository,
+            TrackMapper trackMapper,
+            ObjectMapper objectMapper,
+            Validator validator,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher,
+            TrackChangeStamper changeStamper,
+            UploadAdmissionFilter uploadAdmissionFilter,
+            PlatformTransactionManager transactionManager,
+            @Value("${spotibye.import.batch-size:100}") int batchSize,
+            @Value("${spotibye.import.batch-bytes:16777216}") long batchBytes,
+            @Value("${spotibye.import.max-concurrent:2}") int maxConcurrent,
+            @Value("${spotibye.import.job-ttl-ms:3600000}") long jobTtlMs) {
+        this.trackRepository = trackRepository;
+        this.trackMapper = trackMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.changeStamper = changeStamper;
+        this.uploadAdmissionFilter = uploadAdmissionFilter;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.batchBytes = batchBytes;
+        this.importSlots = new Semaphore(maxConcurrent);
+        this.jobTtlMs = jobTtlMs;
+    }
+
+    /**
+     * Stream every track with an ID greater than afterId to the output, as NDJSON or a zip holding it
+     */
+    public void exportTracks(OutputStream out, boolean zip, long afterId) throws IOException {
+        log.info("Exporting tracks after ID {} ({})", afterId, zip ? "zip" : "ndjson");
+        ZipOutputStream zipOut = null;
+        OutputStream target = out;
+        if (zip) {
+            zipOut = new ZipOutputStream(out);
+            zipOut.putNextEntry(new ZipEntry(NDJSON_ENTRY));
+            target = zipOut;
+        }
+
+        SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(nonClosing(target));
+
+        long exported = readTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<Track> tracks = trackRepository.streamAllByIdGreaterThan(afterId)) {
+                Iterator<Track> iterator = tracks.iterator();
+                while (iterator.hasNext()) {
+                    Track track = iterator.next();
+                    writer.write(trackMapper.toDetailDTO(track));
+                    entityManager.detach(track);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+
+        writer.close();
+        target.write('\n');
+        if (zipOut != null) {
+            zipOut.closeEntry();
+            zipOut.finish();
+        }
+        target.flush();
+        log.info("Exported {} tracks", exported);
+    }
+
+    /**
+     * Import tracks from NDJSON (or a zip holding it), resuming a previous attempt with the same ID
+     *
+     * @param resumeFrom number of leading records to skip; defaults to the checkpoint of a previous attempt
+     * @throws CapacityExceededException if the maximum number of imports is already running
+     */
+    public ImportProgressDTO importTracks(InputStream body, boolean zip, String importId, Long resumeFrom)
+            throws IOException {
+        if (!importSlots.tryAcquire()) {
+            throw new CapacityExceededException("Too many imports running, retry later");
+        }
+        try {
+            return runImport(body, zip, importId, resumeFrom);
+        } finally {
+            importSlots.release();
+        }
+    }
+
+    public ImportProgressDTO getImportProgress(String importId) {
+        ImportJob job = jobs.get(importId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import not found with ID: " + importId);
+        }
+        return job.toDTO();
+    }
+
+    /**
+     * Forget completed and failed imports that saw no activity within the TTL
+     */
+    @Scheduled(fixedDelayString = "${spotibye.import.gc-interval-ms:300000}")
+    public void collectFinished() {
+        collectFinished(System.currentTimeMillis());
+    }
+
+    void collectFinished(long now) {
+        for (String id : jobs.keySet()) {
+            // Atomic with runImport's compute, so an import being resumed is never dropped
+            jobs.computeIfPresent(id, (key, job) ->
+                    job.status != ImportStatus.RUNNING && now - job.lastActivity >= jobTtlMs ? null : job);
+        }
+    }
+
+    private ImportProgressDTO runImport(InputStream body, boolean zip, String importId, Long resumeFrom)
+            throws IOException {
+        ImportJob job = jobs.compute(importId, (id, existing) -> {
+            if (existing != null && existing.status == ImportStatus.RUNNING) {
+                throw new InvalidRequestException("Import " + id + " is already running");
+            }
+            ImportJob next = existing != null ? existing : new ImportJob(id);
+            next.status = ImportStatus.RUNNING;
+            next.errors.clear();
+            next.touch();
+            return next;
+        });
+        long skip = resumeFrom != null ? resumeFrom : job.lastCommittedLine;
+        job.lastCommittedLine = skip;
+        log.info("Importing tracks for import {} from record {}", importId, skip);
+
+        CountingInputStream counting = new CountingInputStream(body);
+        InputStream in = new BufferedInputStream(counting, 256 * 1024);
+        try {
+            if (zip) {
+                in = openNdjsonEntry(in);
+            }
+            readBatches(in, job, skip, counting);
+            job.status = ImportStatus.COMPLETED;
+            log.info("Import {} completed: {} imported, {} failed", importId, job.imported, job.failed);
+        } catch (IOException | RuntimeException e) {
+            job.status = ImportStatus.FAILED;
+            job.addError("Record " + (job.lastCommittedLine + 1) + " onwards: " + e.getMessage());
+            log.error("Import {} failed after record {}", importId, job.lastCommittedLine, e);
+        } finally {
+            job.bytesRead = counting.count;
+            job.touch();
+        }
+        return job.toDTO();
+    }
+
+    private void readBatches(InputStream in, ImportJob job, long skip, CountingInputStream counting)
+            throws IOException {
+        List<Track> batch = new ArrayList<>(batchSize);
+        long line = skip;
+        long pendingBytes = 0;
+        long pendingFailed = 0;
+
+        IOException parseError = null;
+        int permits = reserveBatch();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            // Checkpoints count parsed records, so skipping does too, whatever the line breaks
+            skipRecords(parser, skip);
+            MappingIterator<TrackDetailDTO> records = objectMapper.readerFor(TrackDetailDTO.class).readValues(parser);
+            while (true) {
+                TrackDetailDTO record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    record = records.nextValue();
+                } catch (IOException e) {
+                    // Keep what was parsed so far, the checkpoint then points at the bad record
+                    parseError = e;
+                    break;
+                }
+                line++;
+
+                CreateTrackDTO createTrackDTO = new CreateTrackDTO(record.getTitle(), record.getArtist(),
+                        record.getCategory(), record.getDescription(), record.getAudioUrl(),
+                        record.getCoverImage(), record.getDuration());
+                Set<ConstraintViolation<CreateTrackDTO>> violations = validator.validate(createTrackDTO);
+                if (!violations.isEmpty()) {
+                    pendingFailed++;
+                    job.addError("Record " + line + ": " + violations.iterator().next().getMessage());
+                    continue;
+                }
+
+                Track track = trackMapper.toEntity(createTrackDTO);
+                track.setIsFavorite(Boolean.TRUE.equals(record.getIsFavorite()));
+                batch.add(track);
+                pendingBytes += length(record.getAudioUrl()) + length(record.getCoverImage());
+
+                if (batch.size() >= batchSize || pendingBytes >= batchBytes) {
+                    commit(batch, job, line, pendingFailed, counting);
+                    pendingBytes = 0;
+                    pendingFailed = 0;
+                    // Nothing is held while waiting for the next batch's budget
+                    uploadAdmissionFilter.release(permits);
+                    permits = 0;
+                    permits = reserveBatch();
+                }
+            }
+            commit(batch, job, line, pendingFailed, counting);
+        } finally {
+            uploadAdmissionFilter.release(permits);
+        }
+        if (parseError != null) {
+            throw parseError;
+        }
+    }
+
+    private void commit(List<Track> batch, ImportJob job, long line, long failed, CountingInputStream counting) {
+        writeTransaction.executeWithoutResult(status -> {
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Track track : batch) {
+                Track saved = trackRepository.save(track);
+                ids.add(saved.getId());
+                eventPublisher.publishEvent(TrackChangedEvent.created(trackMapper.toDTO(saved), saved.getVersion()));
+            }
+            changeStamper.stampOnCommit(ids);
+        });
+        job.imported += batch.size();
+        job.failed += failed;
+        job.lastCommittedLine = line;
+        job.bytesRead = counting.count;
+        job.touch();
+        batch.clear();
+        log.debug("Import {} checkpoint at line {}", job.id, line);
+    }
+
+    private InputStream openNdjsonEntry(InputStream in) throws IOException {
+        ZipInputStream zipIn = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zipIn.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().endsWith(".ndjson")) {
+                return zipIn;
+            }
+        }
+        throw new InvalidRequestException("Zip archive contains no .ndjson entry");
+    }
+
+    /**
+     * Reserve heap budget for the payloads of one batch, held until it is committed
+     */
+    private int reserveBatch() {
+        int permits = uploadAdmissionFilter.reserve(batchBytes);
+        if (permits == 0) {
+            throw new CapacityExceededException("Server is busy processing uploads, resume the import later");
+        }
+        return permits;
+    }
+
+    private static void skipRecords(JsonParser parser, long records) throws IOException {
+        for (long skipped = 0; skipped < records; skipped++) {
+            if (parser.nextToken() == null) {
+                return;
+            }
+            // Skips string contents without building them
+            parser.skipChildren();
+        }
+        // Leave no current token, so the iterator starts at the next record
+        parser.clearCurrentToken();
+    }
+
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private enum ImportStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final List<String> errors = new ArrayList<>();
+        private volatile ImportStatus status;
+        private volatile long lastCommittedLine;
+        private volatile long imported;
+        private volatile long failed;
+        private volatile long bytesRead;
+        private volatile LocalDateTime updatedAt;
+        private volatile long lastActivity;
+
+        ImportJob(String id) {
+            this.id = id;
+        }
+
+        synchronized void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        void touch() {
+            updatedAt = LocalDateTime.now();
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized ImportProgressDTO toDTO() {
+            return new ImportProgressDTO(id, status.name(), lastCommittedLine, imported, failed, bytesRead,
+                    List.copyOf(errors), updatedAt);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
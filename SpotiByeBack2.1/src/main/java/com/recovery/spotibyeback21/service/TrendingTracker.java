@@ -0,0 +1,236 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.event.TrackFavoritedEvent;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding-window heavy-hitter counting for the "trending now" shelf.
+ *
+ * Each window is a ring of time buckets, and every bucket keeps a Space-Saving
+ * summary of at most {@link #COUNTERS_PER_BUCKET} tracks. Memory is bounded by
+ * buckets x counters regardless of catalog size. Ranked results are cached for
+ * a few seconds so repeated queries are a map lookup. A track earns the favorite
+ * weight at most once per day-long window, so toggling it on and off repeatedly
+ * cannot farm the ranking.
+ */
+@Component
+public class TrendingTracker implements MetricsSource {
+
+    static final int COUNTERS_PER_BUCKET = 256;
+    static final int MAX_RESULTS = 100;
+    static final long FAVORITE_WEIGHT = 5;
+    private static final long RESULT_TTL_MS = 5_000;
+
+    public enum Window {
+        LAST_HOUR("1h", 12, 5 * 60_000L),
+        LAST_DAY("24h", 24, 60 * 60_000L);
+
+        private final String label;
+        private final int buckets;
+        private final long bucketMillis;
+
+        Window(String label, int buckets, long bucketMillis) {
+            this.label = label;
+            this.buckets = buckets;
+            this.bucketMillis = bucketMillis;
+        }
+
+        long spanMillis() {
+            return buckets * bucketMillis;
+        }
+
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new InvalidRequestException("Unsupported trending window: " + label + " (use 1h or 24h)");
+        }
+    }
+
+    private final LongSupplier clock;
+    private final Map<Window, SlidingWindow> windows = new HashMap<>();
+    // Track ID -> when its favorite was last counted, kept for the longest window
+    private final Map<Long, Long> favoritedAt = new HashMap<>();
+    private long nextFavoriteSweep;
+
+    public TrendingTracker() {
+        this(System::currentTimeMillis);
+    }
+
+    TrendingTracker(LongSupplier clock) {
+        this.clock = clock;
+        for (Window window : Window.values()) {
+            windows.put(window, new SlidingWindow(window));
+        }
+    }
+
+    /**
+     * Count plays, keyed by track ID
+     */
+    public void recordPlays(Map<Long, Long> playsByTrack) {
+        long now = clock.getAsLong();
+        for (SlidingWindow window : windows.values()) {
+            window.add(playsByTrack, now);
+        }
+    }
+
+    /**
+     * Count a favorite, unless the track already earned one within the day window
+     */
+    public void recordFavorite(Long trackId) {
+        long now = clock.getAsLong();
+        long span = Window.LAST_DAY.spanMillis();
+        synchronized (favoritedAt) {
+            if (now >= nextFavoriteSweep) {
+                favoritedAt.values().removeIf(at -> now - at >= span);
+                nextFavoriteSweep = now + Window.LAST_DAY.bucketMillis;
+            }
+            Long last = favoritedAt.get(trackId);
+            if (last != null && now - last < span) {
+                return;
+            }
+            favoritedAt.put(trackId, now);
+        }
+        recordPlays(Map.of(trackId, FAVORITE_WEIGHT));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackFavorited(TrackFavoritedEvent event) {
+        recordFavorite(event.getTrackId());
+    }
+
+    /**
+     * IDs of the top tracks in the window, hottest first
+     */
+    public List<Long> top(Window window, int k) {
+        List<Long> ranked = windows.get(window).ranked(clock.getAsLong());
+        return ranked.subList(0, Math.min(k, ranked.size()));
+    }
+
+    @Override
+    public String metricsName() {
+        return "trending";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        windows.forEach((window, sliding) -> metrics.put(window.label + "Counters", sliding.counters()));
+        synchronized (favoritedAt) {
+            metrics.put("recentFavorites", favoritedAt.size());
+        }
+        return metrics;
+    }
+
+    private static final class SlidingWindow {
+        private final Window window;
+        private final long[] bucketEpochs;
+        private final SpaceSaving[] buckets;
+        private List<Long> cachedRanking = List.of();
+        private long cachedAt = -1;
+
+        SlidingWindow(Window window) {
+            this.window = window;
+            this.bucketEpochs = new long[window.buckets];
+            this.buckets = new SpaceSaving[window.buckets];
+            for (int i = 0; i < window.buckets; i++) {
+                buckets[i] = new SpaceSaving(COUNTERS_PER_BUCKET);
+                bucketEpochs[i] = -1;
+            }
+        }
+
+        synchronized void add(Map<Long, Long> counts, long now) {
+            long epoch = now / window.bucketMillis;
+            int index = (int) (epoch % window.buckets);
+            if (bucketEpochs[index] != epoch) {
+                bucketEpochs[index] = epoch;
+                buckets[index].clear();
+            }
+            counts.forEach(buckets[index]::add);
+        }
+
+        synchronized List<Long> ranked(long now) {
+            if (cachedAt >= 0 && now - cachedAt < RESULT_TTL_MS) {
+                return cachedRanking;
+            }
+            long currentEpoch = now / window.bucketMillis;
+            Map<Long, Long> totals = new HashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (bucketEpochs[i] >= 0 && currentEpoch - bucketEpochs[i] < window.buckets) {
+                    buckets[i].counters.forEach((id, counter) -> totals.merge(id, counter[0], Long::sum));
+                }
+            }
+            List<Map.Entry<Long, Long>> entries = new ArrayList<>(totals.entrySet());
+            entries.sort(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+            List<Long> ranking = new ArrayList<>(Math.min(MAX_RESULTS, entries.size()));
+            for (int i = 0; i < entries.size() && i < MAX_RESULTS; i++) {
+                ranking.add(entries.get(i).getKey());
+            }
+            cachedRanking = List.copyOf(ranking);
+            cachedAt = now;
+            return cachedRanking;
+        }
+
+        synchronized int counters() {
+            int total = 0;
+            for (SpaceSaving bucket : buckets) {
+                total += bucket.counters.size();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Space-Saving summary: exact for tracks it holds, and when full the least
+     * counted track is replaced, its count inherited as the newcomer's error bound
+     */
+    private static final class SpaceSaving {
+        private final int capacity;
+        // [count, error]
+        private final Map<Long, long[]> counters;
+
+        SpaceSaving(int capacity) {
+            this.capacity = capacity;
+            this.counters = new HashMap<>(capacity * 2);
+        }
+
+        void add(Long id, Long weight) {
+            long[] counter = counters.get(id);
+            if (counter != null) {
+                counter[0] += weight;
+                return;
+            }
+            if (counters.size() < capacity) {
+                counters.put(id, new long[] { weight, 0 });
+                return;
+            }
+            Long minId = null;
+            long minCount = Long.MAX_VALUE;
+            for (Map.Entry<Long, long[]> entry : counters.entrySet()) {
+                if (entry.getValue()[0] < minCount) {
+                    minCount = entry.getValue()[0];
+                    minId = entry.getKey();
+                }
+            }
+            counters.remove(minId);
+            counters.put(id, new long[] { minCount + weight, minCount });
+        }
+
+        void clear() {
+            counters.clear();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.audio.AudioPayload;
+import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.CreateUploadDTO;
+import com.recovery.spotibyeback21.dto.FinalizeUploadDTO;
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.UploadStatusDTO;
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.exception.ConflictException;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import com.recovery.spotibyeback21.filter.UploadAdmissionFilter;
+import com.recovery.spotibyeback21.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Resumable audio uploads.
+ *
+ * A session starts with an empty temp file that may grow up to the announced length.
+ * Chunks are written at their offset with positional FileChannel writes and the
+ * offset advances after every buffer, so a connection dropped mid-chunk keeps what
+ * already arrived and the client only resends the rest. A complete upload is turned
+ * into a track by handing the file to {@link TrackService#createTrack} as an
+ * {@link AudioPayload}; the session and file are only removed once the track exists,
+ * so a failed finalize can be retried without uploading again. The track is stored
+ * as a base64 data URL built on the heap, so finalize reserves the encoded size from
+ * the upload admission budget like any large request body. Sessions live in
+ * memory; idle ones are removed with their files.
+ */
+@Service
+@Slf4j
+public class UploadService implements MetricsSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TrackService trackService;
+    private final UploadAdmissionFilter uploadAdmissionFilter;
+    private final Path directory;
+    private final long maxLength;
+    private final int maxSessions;
+    private final long ttlMs;
+    private final LongSupplier clock;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Autowired
+    public UploadService(
+            TrackService trackService,
+            UploadAdmissionFilter uploadAdmissionFilter,
+            @Value("${spotibye.uploads.dir:${java.io.tmpdir}/spotibye-uploads}") Path directory,
+            @Value("${spotibye.uploads.max-length:52428800}") long maxLength,
+            @Value("${spotibye.uploads.max-sessions:100}") int maxSessions,
+            @Value("${spotibye.uploads.ttl-ms:3600000}") long ttlMs) {
+        this(trackService, uploadAdmissionFilter, directory, maxLength, maxSessions, ttlMs, System::currentTimeMillis);
+    }
+
+    UploadService(TrackService trackService, UploadAdmissionFilter uploadAdmissionFilter, Path directory,
+            long maxLength, int maxSessions, long ttlMs, LongSupplier clock) {
+        this.trackService = trackService;
+        this.uploadAdmissionFilter = uploadAdmissionFilter;
+        this.directory = directory;
+        this.maxLength = maxLength;
+        this.maxSessions = maxSessions;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Create the spool directory and drop files left by a previous run; their sessions are gone
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.upload")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public UploadStatusDTO createUpload(CreateUploadDTO request) {
+        if (request.getLength() > maxLength) {
+            throw new InvalidRequestException("Upload length exceeds the limit of " + maxLength + " bytes");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new CapacityExceededException("Too many uploads in progress");
+        }
+        String id = UUID.randomUUID().toString();
+        Path file = directory.resolve(id + ".upload");
+        try {
+            Files.createFile(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        UploadSession session = new UploadSession(id, file, request.getMediaType(), request.getLength(), clock.getAsLong());
+        sessions.put(id, session);
+        created.incrementAndGet();
+        log.info("Upload {} created for {} bytes of {}", id, request.getLength(), request.getMediaType());
+        return status(session);
+    }
+
+    public UploadStatusDTO getUpload(String id) {
+        return status(session(id));
+    }
+
+    /**
+     * Write a chunk at the given offset
+     *
+     * @return the new offset
+     * @throws ConflictException if the offset is not the current one or another chunk is being written
+     */
+    public long writeChunk(String id, long offset, InputStream chunk) throws IOException {
+        UploadSession session = session(id);
+        if (!session.lock.tryLock()) {
+            throw new ConflictException("Upload " + id + " is being written by another request");
+        }
+        try {
+            if (!sessions.containsKey(id)) {
+                throw new ResourceNotFoundException("Upload not found with ID: " + id);
+            }
+            if (offset != session.offset) {
+                throw new ConflictException("Upload " + id + " is at offset " + session.offset + ", not " + offset);
+            }
+            session.lastActivity = clock.getAsLong();
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                int read;
+                while ((read = chunk.read(buffer)) > 0) {
+                    long remaining = session.length - session.offset;
+                    int accepted = (int) Math.min(read, remaining);
+                    wrapped.clear().limit(accepted);
+                    long position = session.offset;
+                    while (wrapped.hasRemaining()) {
+                        position += channel.write(wrapped, position);
+                    }
+                    session.offset = position;
+                    bytesReceived.addAndGet(accepted);
+                    if (accepted < read) {
+                        throw new InvalidRequestException("Chunk exceeds the upload length of " + session.length + " bytes");
+                    }
+                }
+            } finally {
+                session.lastActivity = clock.getAsLong();
+            }
+            return session.offset;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Create a track from a complete upload; the upload is consumed only once the track is created
+     */
+    public TrackDetailDTO finalizeUpload(String id, FinalizeUploadDTO metadata) {
+        UploadSession session = session(id);
+        if (!session.lock.tryLock()) {
+            throw new ConflictException("Upload " + id + " is being written by another request");
+        }
+        try {
+            if (!sessions.containsKey(id)) {
+                throw new ResourceNotFoundException("Upload not found with ID: " + id);
+            }
+            if (session.offset != session.length) {
+                throw new ConflictException("Upload " + id + " is incomplete: " + session.offset + " of " + session.length + " bytes");
+            }
+            session.lastActivity = clock.getAsLong();
+
+            String header = "data:" + session.mediaType + ";base64";
+            CreateTrackDTO track = new CreateTrackDTO(metadata.getTitle(), metadata.getArtist(), metadata.getCategory(),
+                    metadata.getDescription(), header, metadata.getCoverImage(), metadata.getDuration());
+            track.setAudioPayload(AudioPayload.borrow(header, session.file));
+            int permits = uploadAdmissionFilter.reserve(encodedLength(header, session.length));
+            if (permits == 0) {
+                throw new CapacityExceededException("Server is busy processing uploads, finalize again later");
+            }
+            TrackDetailDTO created;
+            try {
+                created = trackService.createTrack(track);
+            } finally {
+                uploadAdmissionFilter.release(permits);
+            }
+
+            sessions.remove(id, session);
+            delete(session);
+            completed.incrementAndGet();
+            log.info("Upload {} finalized as track {}", id, created.getId());
+            return created;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    // Size of the data URL the track will hold: header, comma and base64 of the audio
+    private static long encodedLength(String header, long length) {
+        return header.length() + 1 + (length + 2) / 3 * 4;
+    }
+
+    public void cancelUpload(String id) {
+        UploadSession session = sessions.remove(id);
+        if (session == null) {
+            throw new ResourceNotFoundException("Upload not found with ID: " + id);
+        }
+        session.lock.lock();
+        try {
+            delete(session);
+        } finally {
+            session.lock.unlock();
+        }
+        log.info("Upload {} cancelled", id);
+    }
+
+    /**
+     * Remove sessions that saw no activity within the TTL
+     */
+    @Scheduled(fixedDelayString = "${spotibye.uploads.gc-interval-ms:300000}")
+    public void collectExpired() {
+        long now = clock.getAsLong();
+        for (UploadSession session : sessions.values()) {
+            if (now - session.lastActivity < ttlMs || !session.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (sessions.remove(session.id, session)) {
+                    delete(session);
+                    expired.incrementAndGet();
+                    log.info("Upload {} expired at offset {} of {}", session.id, session.offset, session.length);
+                }
+            } finally {
+                session.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "uploads";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("active", sessions.size());
+        metrics.put("created", created.get());
+        metrics.put("completed", completed.get());
+        metrics.put("expired", expired.get());
+        metrics.put("bytesReceived", bytesReceived.get());
+        return metrics;
+    }
+
+    private UploadSession session(String id) {
+        UploadSession session = sessions.get(id);
+        if (session == null) {
+            throw new ResourceNotFoundException("Upload not found with ID: " + id);
+        }
+        return session;
+    }
+
+    private UploadStatusDTO status(UploadSession session) {
+        return new UploadStatusDTO(session.id, session.mediaType, session.offset, session.length,
+                Instant.ofEpochMilli(session.lastActivity + ttlMs));
+    }
+
+    private static void delete(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.file);
+        } catch (IOException e) {
+            log.warn("Could not delete upload file {}", session.file, e);
+        }
+    }
+
+    private static final class UploadSession {
+        final String id;
+        final Path file;
+        final String mediaType;
+        final long length;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long offset;
+        volatile long lastActivity;
+
+        UploadSession(String id, Path file, String mediaType, long length, long now) {
+            this.id = id;
+            this.file = file;
+            this.mediaType = mediaType;
+            this.length = length;
+            this.lastActivity = now;
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Objects Hibernate does not generate; runs before the schema update
+CREATE SEQUENCE IF NOT EXISTS track_change_seq;
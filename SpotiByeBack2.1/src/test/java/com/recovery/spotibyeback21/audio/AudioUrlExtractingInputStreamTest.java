@@ -0,0 +1,95 @@
+package com.recovery.spotibyeback21.audio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AudioUrlExtractingInputStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldDivertBase64AudioToPayload() throws IOException {
+        byte[] audio = randomBytes(300_001);
+        String json = "{\"title\":\"Song\", \"audioUrl\" : \"data:audio/mpeg;base64,"
+                + Base64.getEncoder().encodeToString(audio) + "\",\"duration\":180}";
+
+        try (AudioUrlExtractingInputStream in = stream(json)) {
+            JsonNode node = objectMapper.readTree(in);
+
+            assertThat(node.get("audioUrl").asText()).isEqualTo("data:audio/mpeg;base64,");
+            assertThat(node.get("title").asText()).isEqualTo("Song");
+            assertThat(node.get("duration").asInt()).isEqualTo(180);
+
+            try (AudioPayload payload = in.getPayload()) {
+                assertThat(payload.getMediaType()).isEqualTo("audio/mpeg");
+                assertThat(payload.openStream().readAllBytes()).isEqualTo(audio);
+                assertThat(payload.toDataUrl())
+                        .isEqualTo("data:audio/mpeg;base64," + Base64.getEncoder().encodeToString(audio));
+            }
+        }
+    }
+
+    @Test
+    void shouldPassThroughPlainUrls() throws IOException {
+        String json = "{\"audioUrl\":\"http://example.com/audio.mp3\",\"description\":\"\\\"audioUrl\\\":\\\"data:x;base64,\"}";
+
+        try (AudioUrlExtractingInputStream in = stream(json)) {
+            JsonNode node = objectMapper.readTree(in);
+
+            assertThat(node.get("audioUrl").asText()).isEqualTo("http://example.com/audio.mp3");
+            assertThat(in.getPayload()).isNull();
+        }
+    }
+
+    @Test
+    void shouldIgnoreAudioUrlAppearingAsValue() throws IOException {
+        String json = "{\"description\":\"audioUrl\",\"audioUrl\":\"data:audio/ogg;base64,AAEC\"}";
+
+        try (AudioUrlExtractingInputStream in = stream(json)) {
+            JsonNode node = objectMapper.readTree(in);
+
+            assertThat(node.get("description").asText()).isEqualTo("audioUrl");
+            assertThat(in.getPayload().openStream().readAllBytes()).containsExactly(0, 1, 2);
+            in.getPayload().close();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidBase64() {
+        String json = "{\"audioUrl\":\"data:audio/mpeg;base64,!!!!\"}";
+
+        assertThatThrownBy(() -> {
+            try (AudioUrlExtractingInputStream in = stream(json)) {
+                objectMapper.readTree(in);
+            }
+        }).isInstanceOf(IOException.class);
+    }
+
+    private AudioUrlExtractingInputStream stream(String json) {
+        // Small reads exercise state carried across buffer boundaries
+        InputStream source = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        return new AudioUrlExtractingInputStream(source);
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,117 @@
+package com.recovery.spotibyeback21.budget;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts JDBC statements and the bytes read from result sets, per thread.
+ *
+ * The data source hands out proxied connections whose statements and result sets
+ * report to a thread-local counter, so background jobs using the same pool do not
+ * disturb a measurement taken on the test thread.
+ */
+public final class JdbcMeter {
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+    private static final int STATEMENTS = 0;
+    private static final int BYTES = 1;
+
+    private JdbcMeter() {
+    }
+
+    public static long statements() {
+        return COUNTERS.get()[STATEMENTS];
+    }
+
+    public static long bytesFetched() {
+        return COUNTERS.get()[BYTES];
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return proxy(Connection.class, super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return proxy(Connection.class, super.getConnection(username, password));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            return intercept(method, result);
+        };
+        return (T) Proxy.newProxyInstance(JdbcMeter.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object intercept(Method method, Object result) {
+        Class<?> declaring = method.getDeclaringClass();
+        String name = method.getName();
+        if (Statement.class.isAssignableFrom(declaring) && name.startsWith("execute")) {
+            COUNTERS.get()[STATEMENTS]++;
+        }
+        if (ResultSet.class.isAssignableFrom(declaring) && name.startsWith("get") && method.getParameterCount() > 0) {
+            COUNTERS.get()[BYTES] += sizeOf(result);
+        }
+        if (result instanceof CallableStatement statement) {
+            return proxy(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement);
+        }
+        if (result instanceof ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet);
+        }
+        return result;
+    }
+
+    private static long sizeOf(Object value) {
+        try {
+            if (value == null) {
+                return 0;
+            }
+            if (value instanceof CharSequence text) {
+                return text.length();
+            }
+            if (value instanceof byte[] bytes) {
+                return bytes.length;
+            }
+            if (value instanceof Clob clob) {
+                return clob.length();
+            }
+            if (value instanceof Blob blob) {
+                return blob.length();
+            }
+            return 8;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.recovery.spotibyeback21.budget;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes the application's DataSource through {@link JdbcMeter}
+ */
+@TestConfiguration
+public class JdbcMeteringConfiguration {
+
+    @Bean
+    static BeanPostProcessor jdbcMeteringPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? JdbcMeter.wrap(dataSource) : bean;
+            }
+        };
+    }
+}
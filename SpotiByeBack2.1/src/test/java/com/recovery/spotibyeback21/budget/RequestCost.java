@@ -0,0 +1,40 @@
+package com.recovery.spotibyeback21.budget;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JDBC statements, bytes read from the database and heap allocated by the current
+ * thread while running an action. MockMvc runs the whole request on the caller's thread.
+ */
+public record RequestCost(long statements, long bytesFetched, long allocatedBytes) {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static RequestCost measure(Action action) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long statements = JdbcMeter.statements();
+        long bytes = JdbcMeter.bytesFetched();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        action.run();
+        return new RequestCost(
+                JdbcMeter.statements() - statements,
+                JdbcMeter.bytesFetched() - bytes,
+                threads.getThreadAllocatedBytes(threadId) - allocated);
+    }
+
+    /**
+     * Fail if any measured cost is above its budget
+     */
+    public RequestCost assertWithin(String label, long maxStatements, long maxBytesFetched, long maxAllocatedBytes) {
+        assertThat(statements).as("%s: JDBC statements (%s)", label, this).isLessThanOrEqualTo(maxStatements);
+        assertThat(bytesFetched).as("%s: bytes fetched (%s)", label, this).isLessThanOrEqualTo(maxBytesFetched);
+        assertThat(allocatedBytes).as("%s: bytes allocated (%s)", label, this).isLessThanOrEqualTo(maxAllocatedBytes);
+        return this;
+    }
+}
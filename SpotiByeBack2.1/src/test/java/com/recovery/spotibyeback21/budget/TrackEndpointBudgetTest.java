@@ -0,0 +1,169 @@
+package com.recovery.spotibyeback21.budget;
+
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import com.recovery.spotibyeback21.service.SuggestionIndex;
+import com.recovery.spotibyeback21.service.TrackListSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cost budgets for the hot read endpoints, measured against a real database.
+ *
+ * Each track carries a large audio payload, so a list path that starts loading
+ * audio_url blows the bytes-fetched budget, and an N+1 shows up as extra statements.
+ * Every request runs once to warm up before it is measured. Tracks are seeded
+ * through the repository, which publishes no change events, so the list snapshot
+ * and the suggestion index are rebuilt explicitly before each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(JdbcMeteringConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:budgetdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+class TrackEndpointBudgetTest {
+
+    private static final int TRACKS = 40;
+    private static final int AUDIO_CHARS = 100_000;
+    private static final int COVER_CHARS = 5_000;
+    // Every summary column except the cover, generously
+    private static final int ROW_OVERHEAD = 512;
+    private static final long MB = 1024 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private TrackListSnapshot trackListSnapshot;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        trackRepository.deleteAll();
+        ids.clear();
+        String audio = "data:audio/mpeg;base64," + "A".repeat(AUDIO_CHARS);
+        String cover = "data:image/png;base64," + "B".repeat(COVER_CHARS);
+        for (int i = 0; i < TRACKS; i++) {
+            Track track = new Track();
+            track.setTitle("Budget Track " + i);
+            track.setArtist("Artist " + (i % 5));
+            track.setCategory(i % 2 == 0 ? "pop" : "jazz");
+            track.setDescription("Description " + i);
+            track.setAudioUrl(audio);
+            track.setCoverImage(cover);
+            track.setDuration(120 + i);
+            ids.add(trackRepository.save(track).getId());
+        }
+        assertThat(trackListSnapshot.rebuild()).isTrue();
+        suggestionIndex.rebuild();
+    }
+
+    @Test
+    void listingAllTracksDoesNotLoadAudio() throws Exception {
+        // The unfiltered list is queried when the snapshot is rebuilt, and served from memory
+        RequestCost.measure(() -> assertThat(trackListSnapshot.rebuild()).isTrue())
+                .assertWithin("GET /api/tracks (snapshot rebuild)", 1, TRACKS * (COVER_CHARS + ROW_OVERHEAD), 4 * MB);
+        measure(get("/api/tracks"))
+                .assertWithin("GET /api/tracks (snapshot)", 0, 0, 2 * MB);
+
+        perform(get("/api/tracks"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.length()").value(TRACKS))
+                .andExpect(jsonPath("$[*].title", hasItem("Budget Track 0")))
+                .andExpect(jsonPath("$[0].audioUrl").doesNotExist());
+    }
+
+    @Test
+    void filteredAndSortedListIsOneQueryWithoutAudio() throws Exception {
+        measure(get("/api/tracks").param("category", "pop").param("minDuration", "100").param("sort", "-title"))
+                .assertWithin("GET /api/tracks?category&minDuration&sort", 1,
+                        TRACKS / 2 * (COVER_CHARS + ROW_OVERHEAD), 2 * MB);
+    }
+
+    @Test
+    void sparseFieldsFetchOnlyRequestedColumns() throws Exception {
+        measure(get("/api/tracks").param("fields", "id,title,artist,duration"))
+                .assertWithin("GET /api/tracks?fields", 1, TRACKS * 64, MB);
+    }
+
+    @Test
+    void trackDetailIsOneQueryThenServedFromCache() throws Exception {
+        Long id = ids.get(0);
+        RequestCost.measure(() -> perform(get("/api/tracks/{id}", ids.get(1))));
+
+        RequestCost.measure(() -> perform(get("/api/tracks/{id}", id)))
+                .assertWithin("GET /api/tracks/{id} (miss)", 1, AUDIO_CHARS + COVER_CHARS + ROW_OVERHEAD, 2 * MB);
+        RequestCost.measure(() -> perform(get("/api/tracks/{id}", id)))
+                .assertWithin("GET /api/tracks/{id} (hit)", 0, 0, 2 * MB);
+    }
+
+    @Test
+    void cachedAudioIsServedWithoutQueryOrHeapCopy() throws Exception {
+        Long id = ids.get(0);
+        RequestCost.measure(() -> perform(get("/api/tracks/{id}/audio", id)))
+                .assertWithin("GET /api/tracks/{id}/audio (miss)", 1, AUDIO_CHARS + ROW_OVERHEAD, 4 * MB);
+        // The test response buffers the body on the heap; a server writes the direct buffer to the socket
+        RequestCost.measure(() -> perform(get("/api/tracks/{id}/audio", id)))
+                .assertWithin("GET /api/tracks/{id}/audio (hit)", 0, 0, MB);
+    }
+
+    @Test
+    void queueBatchIsOneQuery() throws Exception {
+        String body = "{\"ids\":" + ids.subList(0, 20) + ",\"detail\":true}";
+        measure(post("/api/tracks/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .assertWithin("POST /api/tracks/batch", 1, 20 * (AUDIO_CHARS + COVER_CHARS + ROW_OVERHEAD), 16 * MB);
+    }
+
+    @Test
+    void suggestionsNeverTouchTheDatabase() throws Exception {
+        measure(get("/api/tracks/suggest").param("prefix", "budget").param("k", "10"))
+                .assertWithin("GET /api/tracks/suggest", 0, 0, 512 * 1024);
+
+        perform(get("/api/tracks/suggest").param("prefix", "budget").param("k", "10"))
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[*].text", everyItem(startsWith("Budget Track "))));
+    }
+
+    private RequestCost measure(RequestBuilder request) throws Exception {
+        perform(request);
+        return RequestCost.measure(() -> perform(request));
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,38 @@
+package com.recovery.spotibyeback21.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnnouncedVersionsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AnnouncedVersions versions = new AnnouncedVersions(Duration.ofNanos(100), clock::get);
+
+    @Test
+    void shouldKeepNewestAnnouncedVersion() {
+        versions.announce(1L, 3);
+        versions.announce(1L, 2);
+
+        assertThat(versions.isSuperseded(1L, 2)).isTrue();
+        assertThat(versions.isSuperseded(1L, 3)).isFalse();
+        assertThat(versions.isSuperseded(2L, 0)).isFalse();
+    }
+
+    @Test
+    void shouldForgetAnnouncementsOlderThanTtl() {
+        versions.announce(1L, 1);
+        clock.set(60);
+        versions.announce(2L, 1);
+
+        clock.set(150);
+        versions.announce(3L, 1);
+
+        assertThat(versions.size()).isEqualTo(2);
+        assertThat(versions.isSuperseded(1L, 0)).isFalse();
+        assertThat(versions.isSuperseded(2L, 0)).isTrue();
+    }
+}
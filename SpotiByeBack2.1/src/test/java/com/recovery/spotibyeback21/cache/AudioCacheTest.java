@@ -0,0 +1,106 @@
+package com.recovery.spotibyeback21.cache;
+
+import com.recovery.spotibyeback21.audio.DecodedAudio;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AudioCacheTest {
+
+    private InProcessInvalidationBus bus;
+    private AudioCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InProcessInvalidationBus();
+        cache = new AudioCache(bus, 3000, 1500);
+        cache.subscribe();
+    }
+
+    @Test
+    void shouldCacheWhileThereIsRoom() {
+        assertThat(cache.put(1L, audio(1000, 0))).isTrue();
+        assertThat(cache.put(2L, audio(1000, 0))).isTrue();
+
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.metrics().get("residentBytes")).isEqualTo(2000L);
+    }
+
+    @Test
+    void shouldNotLetOneOffReadsEvictHotTracks() {
+        fill();
+        for (int i = 0; i < 5; i++) {
+            cache.get(1L);
+            cache.get(2L);
+            cache.get(3L);
+        }
+
+        cache.get(4L);
+        assertThat(cache.wouldAdmit(4L, 1000)).isFalse();
+        assertThat(cache.put(4L, audio(1000, 0))).isFalse();
+
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.metrics().get("rejected")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldAdmitTrackThatBecameHotterThanTheEldest() {
+        fill();
+        cache.get(2L);
+        cache.get(3L);
+        for (int i = 0; i < 3; i++) {
+            cache.get(4L);
+        }
+
+        assertThat(cache.put(4L, audio(1000, 0))).isTrue();
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(4L)).isNotNull();
+        assertThat(cache.metrics().get("evictions")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectOversizedAndHeapAudio() {
+        assertThat(cache.put(1L, audio(2000, 0))).isFalse();
+        assertThat(cache.put(2L, new DecodedAudio("audio/mpeg", ByteBuffer.allocate(10), 0))).isFalse();
+    }
+
+    @Test
+    void shouldInvalidateByVersion() {
+        cache.put(1L, audio(100, 2));
+
+        cache.onNotices(List.of(new ChangeNotice(1L, 1)));
+        assertThat(cache.get(1L)).isNotNull();
+
+        cache.onTrackChanged(TrackChangedEvent.deleted(1L));
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.put(1L, audio(100, 2))).isFalse();
+    }
+
+    @Test
+    void shouldReportHitRatio() {
+        cache.put(1L, audio(100, 0));
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+
+        assertThat(cache.metrics().get("hitRatio")).isEqualTo(0.75);
+    }
+
+    private void fill() {
+        cache.put(1L, audio(1000, 0));
+        cache.put(2L, audio(1000, 0));
+        cache.put(3L, audio(1000, 0));
+    }
+
+    private static DecodedAudio audio(int size, long version) {
+        return new DecodedAudio("audio/mpeg", ByteBuffer.allocateDirect(size).asReadOnlyBuffer(), version);
+    }
+}
@@ -0,0 +1,94 @@
+package com.recovery.spotibyeback21.cache;
+
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackCacheTest {
+
+    private InProcessInvalidationBus bus;
+    private TrackCache local;
+    private TrackCache remote;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InProcessInvalidationBus();
+        local = new TrackCache(bus, 100, 1_000_000);
+        remote = new TrackCache(bus, 100, 1_000_000);
+        local.subscribe();
+        remote.subscribe();
+    }
+
+    @Test
+    void shouldInvalidateOtherInstanceAfterFlush() {
+        local.put(1L, 0, detail("Old"));
+        remote.put(1L, 0, detail("Old"));
+
+        local.onTrackChanged(TrackChangedEvent.updated(summary(1L), 1L));
+        assertThat(local.get(1L)).isNull();
+        assertThat(remote.get(1L)).isNotNull();
+
+        bus.flush();
+        assertThat(remote.get(1L)).isNull();
+    }
+
+    @Test
+    void shouldIgnoreStaleNotices() {
+        remote.put(1L, 3, detail("Current"));
+
+        remote.onNotices(List.of(new ChangeNotice(1L, 2)));
+
+        assertThat(remote.get(1L).getTitle()).isEqualTo("Current");
+        assertThat(remote.metrics().get("staleNoticesIgnored")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectPutOlderThanAnnouncedVersion() {
+        remote.onNotices(List.of(new ChangeNotice(1L, 2)));
+
+        remote.put(1L, 1, detail("Before update"));
+
+        assertThat(remote.get(1L)).isNull();
+    }
+
+    @Test
+    void shouldClearOnEverythingNotice() {
+        remote.put(1L, 0, detail("A"));
+        remote.put(2L, 0, detail("B"));
+
+        remote.onNotices(List.of(ChangeNotice.everything()));
+
+        assertThat(remote.metrics().get("entries")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBeyondMaxEntries() {
+        TrackCache small = new TrackCache(bus, 2, 1_000_000);
+        small.put(1L, 0, detail("A"));
+        small.put(2L, 0, detail("B"));
+        small.get(1L);
+        small.put(3L, 0, detail("C"));
+
+        assertThat(small.get(1L)).isNotNull();
+        assertThat(small.get(2L)).isNull();
+        assertThat(small.get(3L)).isNotNull();
+    }
+
+    private static TrackDetailDTO detail(String title) {
+        TrackDetailDTO dto = new TrackDetailDTO();
+        dto.setTitle(title);
+        return dto;
+    }
+
+    private static TrackDTO summary(Long id) {
+        TrackDTO dto = new TrackDTO();
+        dto.setId(id);
+        return dto;
+    }
+}
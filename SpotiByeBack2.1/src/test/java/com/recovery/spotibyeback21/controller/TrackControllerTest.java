@@ -1,12 +1,24 @@
 package com.recovery.spotibyeback21.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recovery.spotibyeback21.audio.DecodedAudio;
 import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.ImportProgressDTO;
+import com.recovery.spotibyeback21.dto.PlayBatchDTO;
+import com.recovery.spotibyeback21.dto.SuggestionDTO;
+import com.recovery.spotibyeback21.dto.TrackChangesDTO;
 import com.recovery.spotibyeback21.dto.TrackDTO;
 import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.TrackQuery;
 import com.recovery.spotibyeback21.dto.UpdateTrackDTO;
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
 import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import com.recovery.spotibyeback21.service.PlayEventService;
+import com.recovery.spotibyeback21.service.TrackChangeFeed;
+import com.recovery.spotibyeback21.service.TrackListSnapshot;
 import com.recovery.spotibyeback21.service.TrackService;
+import com.recovery.spotibyeback21.service.TrackTransferService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,9 +29,15 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,6 +54,18 @@ class TrackControllerTest {
         @MockBean
         private TrackService trackService;
 
+        @MockBean
+        private PlayEventService playEventService;
+
+        @MockBean
+        private TrackTransferService trackTransferService;
+
+        @MockBean
+        private TrackListSnapshot trackListSnapshot;
+
+        @MockBean
+        private TrackChangeFeed trackChangeFeed;
+
         private TrackDTO trackDTO;
         private TrackDetailDTO trackDetailDTO;
         private CreateTrackDTO createTrackDTO;
@@ -74,6 +104,72 @@ class TrackControllerTest {
                 verify(trackService, times(1)).getAllTracks();
         }
 
+        @Test
+        void shouldServeAllTracksFromSnapshot() throws Exception {
+                byte[] json = objectMapper.writeValueAsBytes(List.of(trackDTO));
+                when(trackListSnapshot.current()).thenReturn(
+                                new TrackListSnapshot.Snapshot(json, new byte[0], "\"abc\"", 1, null));
+
+                mockMvc.perform(get("/api/tracks"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"abc\""))
+                                .andExpect(jsonPath("$[0].title").value("Test Track"));
+
+                verify(trackService, never()).getAllTracks();
+        }
+
+        @Test
+        void shouldReturnNotModifiedForMatchingSnapshotEtag() throws Exception {
+                when(trackListSnapshot.current()).thenReturn(
+                                new TrackListSnapshot.Snapshot(new byte[0], new byte[0], "\"abc\"", 0, null));
+
+                mockMvc.perform(get("/api/tracks").header("If-None-Match", "\"abc\""))
+                                .andExpect(status().isNotModified());
+        }
+
+        @Test
+        void shouldTagGzipSnapshotSeparately() throws Exception {
+                when(trackListSnapshot.current()).thenReturn(
+                                new TrackListSnapshot.Snapshot(new byte[0], new byte[] { 1 }, "\"abc\"", 0, null));
+
+                mockMvc.perform(get("/api/tracks").header("Accept-Encoding", "gzip"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip"))
+                                .andExpect(header().string("ETag", "\"abc-gz\""));
+
+                mockMvc.perform(get("/api/tracks").header("If-None-Match", "\"abc-gz\""))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        void shouldServeIdentityWhenGzipIsRefused() throws Exception {
+                when(trackListSnapshot.current()).thenReturn(
+                                new TrackListSnapshot.Snapshot(new byte[0], new byte[] { 1 }, "\"abc\"", 0, null));
+
+                mockMvc.perform(get("/api/tracks").header("Accept-Encoding", "gzip;q=0, identity"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding"))
+                                .andExpect(header().string("ETag", "\"abc\""));
+                mockMvc.perform(get("/api/tracks").header("Accept-Encoding", "x-gzip-not"))
+                                .andExpect(header().doesNotExist("Content-Encoding"));
+                mockMvc.perform(get("/api/tracks").header("Accept-Encoding", "br, *;q=0.5"))
+                                .andExpect(header().string("Content-Encoding", "gzip"));
+        }
+
+        @Test
+        void shouldCompareListedAndWeakEtagsWeakly() throws Exception {
+                when(trackListSnapshot.current()).thenReturn(
+                                new TrackListSnapshot.Snapshot(new byte[0], new byte[0], "\"abc\"", 0, null));
+
+                mockMvc.perform(get("/api/tracks").header("If-None-Match", "\"old\", W/\"abc\""))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string("ETag", "\"abc\""));
+                mockMvc.perform(get("/api/tracks").header("If-None-Match", "*"))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/tracks").header("If-None-Match", "\"old\""))
+                                .andExpect(status().isOk());
+        }
+
         @Test
         void shouldGetTrackById() throws Exception {
                 when(trackService.getTrackById(1L)).thenReturn(trackDetailDTO);
@@ -95,6 +191,37 @@ class TrackControllerTest {
                                 .andExpect(status().isNotFound());
         }
 
+        @Test
+        void shouldGetSimilarTracks() throws Exception {
+                when(trackService.getSimilarTracks(1L, 50)).thenReturn(List.of(trackDTO));
+
+                mockMvc.perform(get("/api/tracks/1/similar").param("k", "500"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].id").value(1));
+
+                verify(trackService, times(1)).getSimilarTracks(1L, 50);
+        }
+
+        @Test
+        void shouldGetTrendingTracks() throws Exception {
+                when(trackService.getTrendingTracks("1h", 5)).thenReturn(List.of(trackDTO));
+
+                mockMvc.perform(get("/api/tracks/trending").param("window", "1h").param("k", "5"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].id").value(1));
+
+                verify(trackService, times(1)).getTrendingTracks("1h", 5);
+        }
+
+        @Test
+        void shouldReturn400ForUnknownTrendingWindow() throws Exception {
+                when(trackService.getTrendingTracks(eq("7d"), anyInt()))
+                                .thenThrow(new InvalidRequestException("Unsupported trending window: 7d"));
+
+                mockMvc.perform(get("/api/tracks/trending").param("window", "7d"))
+                                .andExpect(status().isBadRequest());
+        }
+
         @Test
         void shouldCreateTrack() throws Exception {
                 when(trackService.createTrack(any(CreateTrackDTO.class))).thenReturn(trackDetailDTO);
@@ -108,6 +235,24 @@ class TrackControllerTest {
                 verify(trackService, times(1)).createTrack(any(CreateTrackDTO.class));
         }
 
+        @Test
+        void shouldStreamBase64AudioIntoPayload() throws Exception {
+                when(trackService.createTrack(any(CreateTrackDTO.class))).thenAnswer(invocation -> {
+                        CreateTrackDTO dto = invocation.getArgument(0);
+                        assertThat(dto.getAudioUrl()).isEqualTo("data:audio/mpeg;base64,");
+                        assertThat(dto.getAudioPayload().openStream().readAllBytes()).containsExactly(1, 2, 3);
+                        return trackDetailDTO;
+                });
+                createTrackDTO.setAudioUrl("data:audio/mpeg;base64,AQID");
+
+                mockMvc.perform(post("/api/tracks")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(createTrackDTO)))
+                                .andExpect(status().isCreated());
+
+                verify(trackService, times(1)).createTrack(any(CreateTrackDTO.class));
+        }
+
         @Test
         void shouldUpdateTrack() throws Exception {
                 when(trackService.updateTrack(anyLong(), any(UpdateTrackDTO.class))).thenReturn(trackDTO);
@@ -130,4 +275,192 @@ class TrackControllerTest {
 
                 verify(trackService, times(1)).deleteTrack(1L);
         }
+
+        @Test
+        void shouldStreamTrackAudio() throws Exception {
+                when(trackService.getTrackAudio(1L)).thenReturn(
+                                DecodedAudio.fromDataUrl("data:audio/mpeg;base64,AAECAwQF", 3, true));
+
+                mockMvc.perform(get("/api/tracks/1/audio"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Type", "audio/mpeg"))
+                                .andExpect(header().string("ETag", "\"1-3\""))
+                                .andExpect(header().string("Accept-Ranges", "bytes"))
+                                .andExpect(content().bytes(new byte[] { 0, 1, 2, 3, 4, 5 }));
+        }
+
+        @Test
+        void shouldStreamRequestedAudioRange() throws Exception {
+                when(trackService.getTrackAudio(1L)).thenReturn(
+                                DecodedAudio.fromDataUrl("data:audio/mpeg;base64,AAECAwQF", 3, true));
+
+                mockMvc.perform(get("/api/tracks/1/audio").header("Range", "bytes=2-"))
+                                .andExpect(status().isPartialContent())
+                                .andExpect(header().string("Content-Range", "bytes 2-5/6"))
+                                .andExpect(content().bytes(new byte[] { 2, 3, 4, 5 }));
+
+                mockMvc.perform(get("/api/tracks/1/audio").header("Range", "bytes=10-"))
+                                .andExpect(status().isRequestedRangeNotSatisfiable())
+                                .andExpect(header().string("Content-Range", "bytes */6"));
+        }
+
+        @Test
+        void shouldGetChangesSinceToken() throws Exception {
+                when(trackChangeFeed.getChanges("12", 1000)).thenReturn(
+                                new TrackChangesDTO(List.of(trackDTO), List.of(7L), "15", false));
+
+                mockMvc.perform(get("/api/tracks/changes").param("since", "12").param("limit", "5000"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.changed[0].title").value("Test Track"))
+                                .andExpect(jsonPath("$.deleted[0]").value(7))
+                                .andExpect(jsonPath("$.token").value("15"))
+                                .andExpect(jsonPath("$.more").value(false));
+        }
+
+        @Test
+        void shouldGetTracksByIds() throws Exception {
+                when(trackService.getTracksByIds(List.of(3L, 1L), true)).thenReturn(List.of(trackDetailDTO));
+
+                mockMvc.perform(get("/api/tracks").param("ids", "3,1").param("detail", "true"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].audioUrl").value("http://example.com/audio.mp3"));
+
+                verify(trackService, never()).getAllTracks();
+        }
+
+        @Test
+        void shouldRejectFieldsCombinedWithIds() throws Exception {
+                mockMvc.perform(get("/api/tracks").param("ids", "3,1").param("fields", "title"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value("fields cannot be combined with ids"));
+
+                verify(trackService, never()).getTracksByIds(any(), anyBoolean());
+        }
+
+        @Test
+        void shouldGetTracksByIdsWithPost() throws Exception {
+                when(trackService.getTracksByIds(List.of(1L, 2L), false)).thenReturn(List.of(trackDTO));
+
+                mockMvc.perform(post("/api/tracks/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"ids\":[1,2]}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].title").value("Test Track"))
+                                .andExpect(jsonPath("$[0].audioUrl").doesNotExist());
+        }
+
+        @Test
+        void shouldBulkDeleteTracks() throws Exception {
+                when(trackService.deleteTracks(List.of(1L, 2L, 3L))).thenReturn(2);
+
+                mockMvc.perform(post("/api/tracks/bulk-delete")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"ids\":[1,2,3]}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.requested").value(3))
+                                .andExpect(jsonPath("$.deleted").value(2));
+        }
+
+        @Test
+        void shouldRecordPlay() throws Exception {
+                mockMvc.perform(post("/api/tracks/1/plays"))
+                                .andExpect(status().isAccepted());
+
+                verify(playEventService, times(1)).recordPlay(1L);
+        }
+
+        @Test
+        void shouldRecordPlayBatch() throws Exception {
+                mockMvc.perform(post("/api/tracks/plays")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new PlayBatchDTO(List.of(1L, 2L)))))
+                                .andExpect(status().isAccepted());
+
+                verify(playEventService, times(1)).recordPlays(List.of(1L, 2L));
+        }
+
+        @Test
+        void shouldReturn429WhenPlayBufferIsFull() throws Exception {
+                doThrow(new CapacityExceededException("Play event buffer is full"))
+                                .when(playEventService).recordPlay(1L);
+
+                mockMvc.perform(post("/api/tracks/1/plays"))
+                                .andExpect(status().isTooManyRequests())
+                                .andExpect(header().exists("Retry-After"));
+        }
+
+        @Test
+        void shouldImportTracksFromRequestBody() throws Exception {
+                ImportProgressDTO progress = new ImportProgressDTO("job-1", "COMPLETED", 2L, 2L, 0L, 10L,
+                                List.of(), null);
+                when(trackTransferService.importTracks(any(), eq(false), eq("job-1"), eq(null)))
+                                .thenReturn(progress);
+
+                mockMvc.perform(post("/api/tracks/import")
+                                .param("importId", "job-1")
+                                .contentType("application/x-ndjson")
+                                .content("{}\n{}\n"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                                .andExpect(jsonPath("$.lastCommittedLine").value(2));
+        }
+
+        @Test
+        void shouldReturnSelectedFieldsOnly() throws Exception {
+                when(trackService.getTrackFields(any(), any()))
+                                .thenReturn(List.of(Map.of("id", 1, "title", "Test Track")));
+
+                mockMvc.perform(get("/api/tracks").param("fields", "id,title"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].title").value("Test Track"))
+                                .andExpect(jsonPath("$[0].artist").doesNotExist());
+
+                verify(trackService, never()).getAllTracks();
+        }
+
+        @Test
+        void shouldRejectUnknownField() throws Exception {
+                mockMvc.perform(get("/api/tracks/1").param("fields", "id,password"))
+                                .andExpect(status().isBadRequest());
+
+                verify(trackService, never()).getTrackFieldsById(anyLong(), any());
+        }
+
+        @Test
+        void shouldCombineFiltersIntoOneQuery() throws Exception {
+                when(trackService.findTracks(any())).thenReturn(List.of(trackDTO));
+
+                mockMvc.perform(get("/api/tracks")
+                                .param("favorites", "true")
+                                .param("category", "Pop")
+                                .param("minDuration", "120")
+                                .param("sort", "-createdAt"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].title").value("Test Track"));
+
+                verify(trackService).findTracks(argThat((TrackQuery query) -> query.getFavorites()
+                                && "Pop".equals(query.getCategory())
+                                && query.getMinDuration() == 120
+                                && "-createdAt".equals(query.getSort())));
+                verify(trackService, never()).getAllTracks();
+        }
+
+        @Test
+        void shouldRejectNegativeDuration() throws Exception {
+                mockMvc.perform(get("/api/tracks").param("maxDuration", "-1"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void shouldSuggestByPrefix() throws Exception {
+                when(trackService.suggest("tes", 10)).thenReturn(
+                                List.of(new SuggestionDTO("Test Track", "title", 1L),
+                                                new SuggestionDTO("Test Artist", "artist", null)));
+
+                mockMvc.perform(get("/api/tracks/suggest").param("prefix", "tes").param("k", "50"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].trackId").value(1))
+                                .andExpect(jsonPath("$[1].type").value("artist"))
+                                .andExpect(jsonPath("$[1].trackId").doesNotExist());
+        }
 }
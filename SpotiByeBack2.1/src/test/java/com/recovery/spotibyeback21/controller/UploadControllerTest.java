@@ -0,0 +1,47 @@
+package com.recovery.spotibyeback21.controller;
+
+import com.recovery.spotibyeback21.service.UploadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UploadController.class)
+class UploadControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private UploadService uploadService;
+
+        @Test
+        void shouldWriteChunkAtUploadOffset() throws Exception {
+                when(uploadService.writeChunk(eq("abc"), eq(4L), any())).thenReturn(8L);
+
+                mockMvc.perform(patch("/api/uploads/abc").header("Upload-Offset", "4").content(new byte[4]))
+                                .andExpect(status().isNoContent())
+                                .andExpect(header().string("Upload-Offset", "8"));
+        }
+
+        @Test
+        void shouldRejectChunkWithoutValidUploadOffset() throws Exception {
+                mockMvc.perform(patch("/api/uploads/abc").content(new byte[4]))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(patch("/api/uploads/abc").header("Upload-Offset", "four").content(new byte[4]))
+                                .andExpect(status().isBadRequest());
+
+                verify(uploadService, never()).writeChunk(any(), anyLong(), any());
+        }
+}
@@ -0,0 +1,63 @@
+package com.recovery.spotibyeback21.filter;
+
+import com.recovery.spotibyeback21.logging.RequestTimings;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestLoggingFilterTest {
+
+    @Test
+    void shouldSkipRequestsOutsideTheSample() throws Exception {
+        RequestLoggingFilter filter = new RequestLoggingFilter(0.0, "", 60_000);
+
+        filter.doFilter(request("GET", "/api/tracks"), new MockHttpServletResponse(), (req, res) -> { });
+
+        assertThat(filter.metrics()).containsEntry("logged", 0L).containsEntry("skipped", 1L);
+    }
+
+    @Test
+    void shouldApplyPerRouteRates() {
+        RequestLoggingFilter filter = new RequestLoggingFilter(1.0,
+                "POST /api/tracks/{id}/plays=0, GET /api/tracks/{id}=1", 60_000);
+
+        assertThat(filter.sampled("POST /api/tracks/{id}/plays")).isFalse();
+        assertThat(filter.sampled("GET /api/tracks/{id}")).isTrue();
+        assertThat(filter.sampled("GET /api/tracks")).isTrue();
+    }
+
+    @Test
+    void shouldAlwaysLogServerErrors() throws Exception {
+        RequestLoggingFilter filter = new RequestLoggingFilter(0.0, "", 60_000);
+
+        filter.doFilter(request("GET", "/api/tracks"), new MockHttpServletResponse(),
+                (req, res) -> ((HttpServletResponse) res).setStatus(503));
+        assertThatThrownBy(() -> filter.doFilter(request("GET", "/api/tracks"), new MockHttpServletResponse(),
+                (req, res) -> { throw new IllegalStateException("boom"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(filter.metrics()).containsEntry("logged", 2L);
+    }
+
+    @Test
+    void shouldOnlyRecordTimingsWhileARequestIsInFlight() throws Exception {
+        RequestLoggingFilter filter = new RequestLoggingFilter(1.0, "", 60_000);
+
+        filter.doFilter(request("GET", "/api/tracks"), new MockHttpServletResponse(),
+                (req, res) -> RequestTimings.recordStatement(1_000_000));
+        RequestTimings.recordStatement(1_000_000);
+
+        assertThat(filter.metrics()).containsEntry("logged", 1L);
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
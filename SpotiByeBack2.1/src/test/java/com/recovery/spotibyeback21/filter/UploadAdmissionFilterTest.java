@@ -0,0 +1,93 @@
+package com.recovery.spotibyeback21.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadAdmissionFilterTest {
+
+    private UploadAdmissionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        filter = new UploadAdmissionFilter(objectMapper, 0.4, 1, 4, 50, 3, 1024, 52428800, 7);
+    }
+
+    @Test
+    void shouldAdmitLargeUploadWhenIdle() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(upload(10_000), response, (req, res) -> { });
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.metrics()).containsEntry("admitted", 1L);
+    }
+
+    @Test
+    void shouldRejectLargeUploadWhenSlotsExhausted() throws Exception {
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+        FilterChain holdSlot = (req, res) -> {
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(upload(10_000), second, (r, s) -> { });
+            nested.set(second);
+        };
+
+        filter.doFilter(upload(10_000), new MockHttpServletResponse(), holdSlot);
+
+        assertThat(nested.get().getStatus()).isEqualTo(429);
+        assertThat(nested.get().getHeader("Retry-After")).isEqualTo("7");
+        assertThat(filter.metrics()).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void shouldLetReadsAndSmallWritesThroughWhenSlotsExhausted() throws Exception {
+        AtomicReference<MockHttpServletResponse> read = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> smallWrite = new AtomicReference<>();
+        FilterChain holdSlot = (req, res) -> {
+            MockHttpServletResponse first = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/tracks"), first, (r, s) -> { });
+            read.set(first);
+
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(upload(100), second, (r, s) -> { });
+            smallWrite.set(second);
+        };
+
+        filter.doFilter(upload(10_000), new MockHttpServletResponse(), holdSlot);
+
+        assertThat(read.get().getStatus()).isEqualTo(200);
+        assertThat(smallWrite.get().getStatus()).isEqualTo(200);
+        assertThat(filter.metrics()).containsEntry("rejected", 0L);
+    }
+
+    @Test
+    void shouldHoldReservationsAgainstTheBudgetUntilReleased() {
+        int whole = filter.reserve(Runtime.getRuntime().maxMemory());
+
+        assertThat(whole).isPositive();
+        assertThat(filter.isBusy()).isTrue();
+        assertThat(filter.reserve(1024)).isZero();
+
+        filter.release(whole);
+
+        int next = filter.reserve(1024);
+        assertThat(next).isEqualTo(3);
+        filter.release(next);
+        assertThat(filter.isBusy()).isFalse();
+    }
+
+    private MockHttpServletRequest upload(int size) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tracks");
+        request.setContent(new byte[size]);
+        return request;
+    }
+}
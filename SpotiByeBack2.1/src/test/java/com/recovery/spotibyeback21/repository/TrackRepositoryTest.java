@@ -1,13 +1,18 @@
 package com.recovery.spotibyeback21.repository;
 
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.dto.TrackQuery;
 import com.recovery.spotibyeback21.entity.Track;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -87,6 +92,130 @@ class TrackRepositoryTest {
         assertThat(deletedTrack).isEmpty();
     }
 
+    @Test
+    void shouldHideSoftDeletedTracksFromQueries() {
+        Track persisted1 = entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.flush();
+
+        int updated = trackRepository.softDeleteById(persisted1.getId(), LocalDateTime.now());
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(trackRepository.findById(persisted1.getId())).isEmpty();
+        assertThat(trackRepository.findAll()).extracting(Track::getTitle).containsExactly("Test Track 2");
+        assertThat(trackRepository.findSummaries(TrackSpecifications.all(), Sort.unsorted())).hasSize(1);
+        assertThat(trackRepository.softDeleteById(persisted1.getId(), LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void shouldListChangesWithTombstonesInSequenceOrder() {
+        Track persisted1 = entityManager.persist(track1);
+        Track persisted2 = entityManager.persist(track2);
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+        trackRepository.markChanged(List.of(persisted1.getId()), now);
+        trackRepository.markChanged(List.of(persisted2.getId()), now);
+        long since = trackRepository.findChangesSince(0, 10).get(0).changeSeq();
+
+        trackRepository.softDeleteById(persisted1.getId(), now);
+        trackRepository.markChanged(List.of(persisted1.getId()), now);
+
+        List<TrackChange> changes = trackRepository.findChangesSince(since, 10);
+        assertThat(changes).extracting(TrackChange::id).containsExactly(persisted2.getId(), persisted1.getId());
+        assertThat(changes.get(0).track().getTitle()).isEqualTo("Test Track 2");
+        assertThat(changes.get(1).isDeleted()).isTrue();
+        assertThat(changes.get(1).changeSeq()).isGreaterThan(changes.get(0).changeSeq());
+        assertThat(trackRepository.findChangesSince(changes.get(1).changeSeq(), 10)).isEmpty();
+    }
+
+    @Test
+    void shouldSequenceTracksWrittenBeforeChangeTracking() {
+        entityManager.persist(track1);
+        entityManager.flush();
+
+        assertThat(trackRepository.findChangesSince(0, 10)).isEmpty();
+        assertThat(trackRepository.markUnsequenced()).isEqualTo(1);
+        assertThat(trackRepository.findChangesSince(0, 10)).hasSize(1);
+    }
+
+    @Test
+    void shouldFindSummariesByIds() {
+        Track persisted1 = entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.flush();
+
+        List<TrackDTO> summaries = trackRepository.findSummariesByIdIn(List.of(persisted1.getId()));
+
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries.get(0).getTitle()).isEqualTo("Test Track 1");
+    }
+
+    @Test
+    void shouldSelectOnlyRequestedFields() {
+        entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.flush();
+
+        List<Map<String, Object>> rows = trackRepository.findFields(
+                TrackSpecifications.hasCategory("Jazz"), Sort.unsorted(), List.of("title", "duration"));
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0)).containsExactly(
+                Map.entry("title", "Test Track 2"), Map.entry("duration", 240));
+    }
+
+    @Test
+    void shouldSearchTitleOrArtistCaseInsensitively() {
+        entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.flush();
+
+        assertThat(trackRepository.findFields(TrackSpecifications.titleOrArtistContains("ARTIST 1"), Sort.unsorted(),
+                List.of("id")))
+                .hasSize(1);
+    }
+
+    @Test
+    void shouldMatchLikeWildcardsInSearchLiterally() {
+        track1.setTitle("100% Pure");
+        track2.setArtist("Test_Artist");
+        entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.flush();
+
+        assertThat(trackRepository.findSummaries(TrackSpecifications.titleOrArtistContains("%"), Sort.unsorted()))
+                .extracting(TrackDTO::getTitle).containsExactly("100% Pure");
+        assertThat(trackRepository.findSummaries(TrackSpecifications.artistContains("t_a"), Sort.unsorted()))
+                .extracting(TrackDTO::getArtist).containsExactly("Test_Artist");
+        assertThat(trackRepository.findSummaries(TrackSpecifications.artistContains("\\"), Sort.unsorted()))
+                .isEmpty();
+    }
+
+    @Test
+    void shouldCombineFiltersAndSort() {
+        Track track3 = new Track();
+        track3.setTitle("Test Track 3");
+        track3.setArtist("Other Artist");
+        track3.setCategory("Pop");
+        track3.setAudioUrl("http://example.com/audio3.mp3");
+        track3.setDuration(200);
+        entityManager.persist(track1);
+        entityManager.persist(track2);
+        entityManager.persist(track3);
+        entityManager.flush();
+
+        TrackQuery query = new TrackQuery();
+        query.setSearch("track");
+        query.setMinDuration(150);
+        query.setMaxDuration(220);
+
+        List<TrackDTO> tracks = trackRepository.findSummaries(TrackSpecifications.matching(query),
+                Sort.by(Sort.Order.desc("duration")));
+
+        assertThat(tracks).extracting(TrackDTO::getTitle).containsExactly("Test Track 3", "Test Track 1");
+    }
+
     @Test
     void shouldUpdateTrack() {
         Track persistedTrack = entityManager.persist(track1);
@@ -0,0 +1,69 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PayloadPurgerTest {
+
+    @Autowired
+    private PayloadPurger payloadPurger;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM tracks");
+    }
+
+    @Test
+    void shouldClearPayloadsOfDeletedTracksAndKeepTombstones() {
+        Track kept = trackRepository.save(track("Kept"));
+        Track deleted = trackRepository.save(track("Deleted"));
+
+        trackService.deleteTracks(List.of(deleted.getId()));
+        while (payloadPurger.purgeBatch() > 0) {
+            // drain
+        }
+
+        Map<String, Object> tombstone = jdbcTemplate.queryForMap(
+                "SELECT audio_url, cover_image, deleted_at, purged_at FROM tracks WHERE id = ?", deleted.getId());
+        assertThat(tombstone.get("AUDIO_URL")).isEqualTo("");
+        assertThat(tombstone.get("COVER_IMAGE")).isNull();
+        assertThat(tombstone.get("DELETED_AT")).isNotNull();
+        assertThat(tombstone.get("PURGED_AT")).isNotNull();
+        assertThat(trackRepository.findById(kept.getId()).orElseThrow().getAudioUrl())
+                .isEqualTo("data:audio/mpeg;base64,AAAA");
+        assertThat(trackRepository.findById(deleted.getId())).isEmpty();
+    }
+
+    private static Track track(String title) {
+        Track track = new Track();
+        track.setTitle(title);
+        track.setArtist("Artist");
+        track.setCategory("pop");
+        track.setAudioUrl("data:audio/mpeg;base64,AAAA");
+        track.setCoverImage("data:image/png;base64,BBBB");
+        track.setDuration(100);
+        return track;
+    }
+}
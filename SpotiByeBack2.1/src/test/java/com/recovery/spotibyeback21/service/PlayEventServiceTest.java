@@ -0,0 +1,120 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlayEventServiceTest {
+
+    @Autowired
+    private PlayEventService playEventService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    private Track track;
+
+    @BeforeEach
+    void setUp() {
+        track = new Track();
+        track.setTitle("Test Track");
+        track.setArtist("Test Artist");
+        track.setCategory("Pop");
+        track.setAudioUrl("http://example.com/audio.mp3");
+        track.setDuration(180);
+        track = trackRepository.save(track);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM play_events");
+        trackRepository.deleteAll();
+    }
+
+    @Test
+    void shouldAggregatePlayCountsAndStoreEvents() {
+        playEventService.recordPlay(track.getId());
+        playEventService.recordPlays(List.of(track.getId(), track.getId(), 999_999L));
+
+        playEventService.flush();
+
+        assertThat(trackRepository.findById(track.getId()).orElseThrow().getPlayCount()).isEqualTo(3L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM play_events", Long.class)).isEqualTo(3L);
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).containsExactly(track.getId());
+    }
+
+    @Test
+    void shouldDropPlaysOfDeletedTracks() {
+        trackService.deleteTrack(track.getId());
+        long discarded = (long) playEventService.metrics().get("discarded");
+
+        playEventService.recordPlays(List.of(track.getId(), track.getId()));
+        playEventService.flush();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT play_count FROM tracks WHERE id = ?", Long.class, track.getId()))
+                .isIn(null, 0L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM play_events", Long.class)).isZero();
+        assertThat(playEventService.metrics().get("discarded")).isEqualTo(discarded + 2);
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 100)).doesNotContain(track.getId());
+    }
+
+    @Test
+    void shouldRejectPlaysWhenBufferIsFull() {
+        PlayEventService small = new PlayEventService(jdbcTemplate, transactionTemplate,
+                new TrendingTracker(), suggestionIndex, 2, 100, true, true);
+        small.recordPlay(track.getId());
+
+        assertThatThrownBy(() -> small.recordPlays(Collections.nCopies(2, track.getId())))
+                .isInstanceOf(CapacityExceededException.class);
+        assertThat(small.metrics()).containsEntry("queued", 1).containsEntry("rejected", 2L);
+    }
+
+    @Test
+    void shouldKeepPlaysFlushedWhileTrackIsBeingEdited() {
+        playEventService.recordPlays(List.of(track.getId(), track.getId()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Track loaded = trackRepository.findById(track.getId()).orElseThrow();
+            // Plays commit from another transaction between the edit's read and its flush
+            CompletableFuture.runAsync(playEventService::flush).join();
+            loaded.setTitle("Edited");
+            trackRepository.saveAndFlush(loaded);
+        });
+
+        Track reloaded = trackRepository.findById(track.getId()).orElseThrow();
+        assertThat(reloaded.getTitle()).isEqualTo("Edited");
+        assertThat(reloaded.getPlayCount()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,51 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SimilarityIndexTest {
+
+    private SimilarityIndex similarityIndex;
+
+    @BeforeEach
+    void setUp() {
+        similarityIndex = new SimilarityIndex(mock(TrackRepository.class));
+        similarityIndex.index(1L, "Blue Night Drive", "The Midnight", "electronic", "Synthwave road anthem");
+        similarityIndex.index(2L, "Blue Night Drive (Live)", "The Midnight", "electronic", "Synthwave road anthem");
+        similarityIndex.index(3L, "Night Drive", "The Midnight", "electronic", "Synthwave");
+        similarityIndex.index(4L, "Goldberg Variations", "Glenn Gould", "classical", "Bach on piano");
+    }
+
+    @Test
+    void shouldRankCloserTracksFirst() {
+        List<Long> similar = similarityIndex.findSimilar(1L, 10);
+
+        assertThat(similar).startsWith(2L).doesNotContain(1L, 4L);
+    }
+
+    @Test
+    void shouldReturnNullForUnknownTrack() {
+        assertThat(similarityIndex.findSimilar(99L, 10)).isNull();
+    }
+
+    @Test
+    void shouldForgetRemovedTracks() {
+        similarityIndex.remove(2L);
+
+        assertThat(similarityIndex.findSimilar(1L, 10)).doesNotContain(2L);
+        assertThat(similarityIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReindexUpdatedTracks() {
+        similarityIndex.index(4L, "Blue Night Drive", "The Midnight", "electronic", "Synthwave road anthem");
+
+        assertThat(similarityIndex.findSimilar(1L, 1)).containsExactly(4L);
+    }
+}
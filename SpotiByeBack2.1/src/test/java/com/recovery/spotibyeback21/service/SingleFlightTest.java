@@ -0,0 +1,127 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> singleFlight.execute("get", 1L, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "track 1";
+        }), release);
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("track 1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(singleFlight.metrics().get("coalesced")).isEqualTo((long) CALLERS - 1);
+        assertThat(singleFlight.metrics().get("inFlight")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldPropagateTheLeadersExceptionToEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(() -> singleFlight.execute("get", 2L, () -> {
+            await(release);
+            throw new ResourceNotFoundException("Track not found with ID: 2");
+        }), release);
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Test
+    void shouldLoadAgainOnceTheFlightHasLanded() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("get", 1L, loads::incrementAndGet);
+        singleFlight.execute("get", 1L, loads::incrementAndGet);
+        singleFlight.execute("search", 1L, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotJoinALoadForgottenAfterAChange() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> before = executor.submit(() -> singleFlight.execute("get", 1L, () -> {
+                started.countDown();
+                await(release);
+                return "before the change";
+            }));
+            await(started);
+
+            singleFlight.forget("get", 1L);
+            String after = singleFlight.execute("get", 1L, () -> "after the change");
+            release.countDown();
+
+            assertThat(after).isEqualTo("after the change");
+            assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before the change");
+            assertThat(singleFlight.metrics().get("coalesced")).isEqualTo(0L);
+            assertThat(singleFlight.metrics().get("forgotten")).isEqualTo(1L);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<Future<String>> runConcurrently(Callable<String> call, CountDownLatch release)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(call));
+            }
+            // Let every caller reach the in-flight load before it finishes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (joined() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long joined() {
+        return (long) singleFlight.metrics().get("coalesced");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
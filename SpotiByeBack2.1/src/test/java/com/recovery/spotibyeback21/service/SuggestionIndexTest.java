@@ -0,0 +1,76 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.SuggestionDTO;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestionIndex(mock(TrackRepository.class));
+        index.index(1L, "Hey Jude", "The Beatles", 50);
+        index.index(2L, "Help!", "The Beatles", 20);
+        index.index(3L, "Heroes", "David Bowie", 80);
+        index.index(4L, "Beat It", "Michael Jackson", 10);
+    }
+
+    @Test
+    void shouldRankTitlesAndArtistsByPopularity() {
+        List<SuggestionDTO> suggestions = index.suggest("he", 10);
+
+        assertThat(suggestions).extracting(SuggestionDTO::getText)
+                .containsExactly("Heroes", "Hey Jude", "Help!");
+        assertThat(suggestions.get(0).getTrackId()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldMatchLaterWordsAndIgnoreCaseAndAccents() {
+        index.index(5L, "Café Del Mar", "Energy 52", 1);
+
+        assertThat(index.suggest("BEAT", 10)).extracting(SuggestionDTO::getText)
+                .containsExactly("The Beatles", "Beat It");
+        assertThat(index.suggest("  the   beat", 10)).extracting(SuggestionDTO::getType)
+                .containsExactly("artist");
+        assertThat(index.suggest("cafe", 10)).extracting(SuggestionDTO::getTrackId).containsExactly(5L);
+    }
+
+    @Test
+    void shouldReorderWhenPlaysArrive() {
+        index.addPlays(Map.of(2L, 100L));
+
+        assertThat(index.suggest("he", 1)).extracting(SuggestionDTO::getText).containsExactly("Help!");
+    }
+
+    @Test
+    void shouldForgetRenamedAndDeletedTracks() {
+        index.index(3L, "Changes", "David Bowie", -1);
+        index.remove(4L);
+
+        assertThat(index.suggest("her", 10)).isEmpty();
+        assertThat(index.suggest("cha", 10)).extracting(SuggestionDTO::getTrackId).containsExactly(3L);
+        assertThat(index.suggest("michael", 10)).isEmpty();
+        assertThat(index.suggest("beat", 10)).extracting(SuggestionDTO::getText).containsExactly("The Beatles");
+    }
+
+    @Test
+    void shouldKeepOnlyTopKPerNode() {
+        for (long id = 10; id < 40; id++) {
+            index.index(id, "Song " + id, "Artist " + id, id);
+        }
+
+        List<SuggestionDTO> suggestions = index.suggest("song", 20);
+
+        assertThat(suggestions).hasSize(SuggestionIndex.TOP_K);
+        assertThat(suggestions.get(0).getText()).isEqualTo("Song 39");
+    }
+}
@@ -0,0 +1,85 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.TrackChangesDTO;
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.repository.TrackChange;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrackChangeFeedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private TrackRepository trackRepository;
+
+    private TrackChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new TrackChangeFeed(trackRepository, 2000, () -> NOW);
+    }
+
+    @Test
+    void shouldSplitChangesAndTombstones() {
+        when(trackRepository.findChangesSince(5, 3)).thenReturn(List.of(
+                change(6, 1L, NOW.minusMinutes(1), false),
+                change(7, 2L, NOW.minusMinutes(1), true),
+                change(9, 3L, NOW.minusSeconds(10), false)));
+
+        TrackChangesDTO changes = feed.getChanges("5", 3);
+
+        assertThat(changes.getChanged()).extracting(TrackDTO::getId).containsExactly(1L, 3L);
+        assertThat(changes.getDeleted()).containsExactly(2L);
+        assertThat(changes.getToken()).isEqualTo("9");
+        assertThat(changes.isMore()).isTrue();
+    }
+
+    @Test
+    void shouldHoldBackChangesThatMayNotHaveSettled() {
+        when(trackRepository.findChangesSince(0, 10)).thenReturn(List.of(
+                change(1, 1L, NOW.minusMinutes(1), false),
+                change(3, 3L, NOW.minusSeconds(1), false),
+                change(4, 4L, NOW.minusMinutes(1), false)));
+
+        TrackChangesDTO changes = feed.getChanges(null, 10);
+
+        assertThat(changes.getChanged()).extracting(TrackDTO::getId).containsExactly(1L);
+        assertThat(changes.getToken()).isEqualTo("1");
+        assertThat(changes.isMore()).isFalse();
+    }
+
+    @Test
+    void shouldKeepTokenWhenNothingChanged() {
+        when(trackRepository.findChangesSince(42, 10)).thenReturn(List.of());
+
+        TrackChangesDTO changes = feed.getChanges("42", 10);
+
+        assertThat(changes.getChanged()).isEmpty();
+        assertThat(changes.getToken()).isEqualTo("42");
+    }
+
+    @Test
+    void shouldRejectInvalidToken() {
+        assertThatThrownBy(() -> feed.getChanges("abc", 10)).isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> feed.getChanges("-1", 10)).isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static TrackChange change(long seq, Long id, LocalDateTime at, boolean deleted) {
+        TrackDTO track = deleted ? null : new TrackDTO(id, "Track " + id, "Artist", "Pop", null, null, 180, false, at, at);
+        return new TrackChange(seq, id, at, track);
+    }
+}
@@ -0,0 +1,99 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackChangeStamperTest {
+
+    @Autowired
+    private TrackChangeStamper changeStamper;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        Track track = new Track();
+        track.setTitle("Title");
+        track.setArtist("Artist");
+        track.setCategory("Pop");
+        track.setAudioUrl("http://example.com/audio.mp3");
+        track.setDuration(180);
+        id = trackRepository.save(track).getId();
+        transactionTemplate.executeWithoutResult(status -> changeStamper.stampOnCommit(List.of(id)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM tracks");
+    }
+
+    @Test
+    void shouldStampWhenTheTransactionCommitsNotWhenAsked() {
+        long before = changeSeq();
+        AtomicReference<LocalDateTime> endOfWork = new AtomicReference<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeStamper.stampOnCommit(List.of(id));
+            assertThat(changeSeq()).isEqualTo(before);
+            // A long-running transaction must not age its own stamps
+            sleep(50);
+            endOfWork.set(LocalDateTime.now());
+        });
+
+        assertThat(changeSeq()).isGreaterThan(before);
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_at FROM tracks WHERE id = ?", Timestamp.class, id)
+                .toLocalDateTime()).isAfterOrEqualTo(endOfWork.get());
+    }
+
+    @Test
+    void shouldNotStampWhenTheTransactionRollsBack() {
+        long before = changeSeq();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeStamper.stampOnCommit(List.of(id));
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeSeq()).isEqualTo(before);
+        transactionTemplate.executeWithoutResult(status -> changeStamper.stampOnCommit(List.of(id)));
+        assertThat(changeSeq()).isGreaterThan(before);
+    }
+
+    private long changeSeq() {
+        return jdbcTemplate.queryForObject("SELECT change_seq FROM tracks WHERE id = ?", Long.class, id);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
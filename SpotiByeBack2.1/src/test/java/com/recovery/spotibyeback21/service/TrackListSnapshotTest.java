@@ -0,0 +1,78 @@
+package com.recovery.spotibyeback21.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.recovery.spotibyeback21.cache.InvalidationBus;
+import com.recovery.spotibyeback21.dto.TrackDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackListSnapshotTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private TrackService trackService;
+    private TrackListSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        trackService = mock(TrackService.class);
+        snapshot = new TrackListSnapshot(trackService, objectMapper, mock(InvalidationBus.class), 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshot.shutdown();
+    }
+
+    @Test
+    void shouldEncodeJsonAndGzipOnce() throws Exception {
+        when(trackService.getAllTracks()).thenReturn(List.of(track(1L, "One"), track(2L, "Two")));
+
+        assertThat(snapshot.rebuild()).isTrue();
+        TrackListSnapshot.Snapshot current = snapshot.current();
+
+        TrackDTO[] fromJson = objectMapper.readValue(current.json(), TrackDTO[].class);
+        byte[] unzipped = new GZIPInputStream(new ByteArrayInputStream(current.gzip())).readAllBytes();
+        assertThat(fromJson).extracting(TrackDTO::getTitle).containsExactly("One", "Two");
+        assertThat(unzipped).isEqualTo(current.json());
+        assertThat(current.etag()).startsWith("\"").endsWith("\"");
+        assertThat(current.trackCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropSnapshotOnChange() throws Exception {
+        when(trackService.getAllTracks()).thenReturn(List.of(track(1L, "One")));
+        snapshot.rebuild();
+
+        snapshot.invalidate();
+
+        assertThat(snapshot.current()).isNull();
+    }
+
+    @Test
+    void shouldDiscardBuildThatOverlapsWithChange() throws Exception {
+        when(trackService.getAllTracks()).thenAnswer(invocation -> {
+            snapshot.invalidate();
+            return List.of(track(1L, "Stale"));
+        });
+
+        assertThat(snapshot.rebuild()).isFalse();
+        assertThat(snapshot.current()).isNull();
+    }
+
+    private static TrackDTO track(Long id, String title) {
+        TrackDTO dto = new TrackDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        return dto;
+    }
+}
@@ -0,0 +1,95 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Entity writes racing with writes committed from another transaction
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackServiceConcurrencyTest {
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @Autowired
+    private PayloadPurger payloadPurger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Track track;
+
+    @BeforeEach
+    void setUp() {
+        track = new Track();
+        track.setTitle("Original");
+        track.setArtist("Artist");
+        track.setCategory("Pop");
+        track.setAudioUrl("http://example.com/audio.mp3");
+        track.setDuration(180);
+        track = trackRepository.save(track);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM tracks");
+    }
+
+    @Test
+    void shouldRejectEditOfTrackChangedSinceItWasRead() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            Track loaded = trackRepository.findById(track.getId()).orElseThrow();
+            CompletableFuture.runAsync(() -> trackService.toggleFavorite(track.getId())).join();
+            loaded.setTitle("Edited");
+            trackRepository.saveAndFlush(loaded);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        Track reloaded = trackRepository.findById(track.getId()).orElseThrow();
+        assertThat(reloaded.getTitle()).isEqualTo("Original");
+        assertThat(reloaded.getIsFavorite()).isTrue();
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldNotRestoreTrackDeletedAndPurgedWhileBeingEdited() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            Track loaded = trackRepository.findById(track.getId()).orElseThrow();
+            CompletableFuture.runAsync(() -> {
+                trackService.deleteTrack(track.getId());
+                payloadPurger.purgeBatch();
+            }).join();
+            loaded.setIsFavorite(true);
+            trackRepository.saveAndFlush(loaded);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(trackRepository.findById(track.getId())).isEmpty();
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT deleted_at, purged_at, audio_url FROM tracks WHERE id = ?", track.getId());
+        assertThat(row.get("deleted_at")).isNotNull();
+        assertThat(row.get("purged_at")).isNotNull();
+        assertThat(row.get("audio_url")).isEqualTo("");
+    }
+}
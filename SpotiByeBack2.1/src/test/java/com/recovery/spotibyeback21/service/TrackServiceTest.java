@@ -1,23 +1,36 @@
 package com.recovery.spotibyeback21.service;
 
+import com.recovery.spotibyeback21.audio.DecodedAudio;
+import com.recovery.spotibyeback21.cache.AudioCache;
+import com.recovery.spotibyeback21.cache.ChangeNotice;
+import com.recovery.spotibyeback21.cache.InvalidationBus;
+import com.recovery.spotibyeback21.cache.TrackCache;
 import com.recovery.spotibyeback21.dto.CreateTrackDTO;
 import com.recovery.spotibyeback21.dto.TrackDTO;
 import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.TrackQuery;
 import com.recovery.spotibyeback21.dto.UpdateTrackDTO;
 import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.event.TrackChangedEvent;
+import com.recovery.spotibyeback21.event.TrackFavoritedEvent;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
 import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
 import com.recovery.spotibyeback21.mapper.TrackMapper;
+import com.recovery.spotibyeback21.repository.TrackAudioView;
 import com.recovery.spotibyeback21.repository.TrackRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -34,6 +47,33 @@ class TrackServiceTest {
     @Mock
     private TrackMapper trackMapper;
 
+    @Mock
+    private SimilarityIndex similarityIndex;
+
+    @Mock
+    private TrendingTracker trendingTracker;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    @Mock
+    private TrackCache trackCache;
+
+    @Mock
+    private AudioCache audioCache;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight();
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @Mock
+    private TrackChangeStamper changeStamper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private TrackService trackService;
 
@@ -77,14 +117,14 @@ class TrackServiceTest {
 
     @Test
     void shouldGetAllTracks() {
-        when(trackRepository.findAll()).thenReturn(Arrays.asList(track));
-        when(trackMapper.toDTO(any(Track.class))).thenReturn(trackDTO);
+        when(trackRepository.findSummaries(any(), any())).thenReturn(Arrays.asList(trackDTO));
 
         List<TrackDTO> result = trackService.getAllTracks();
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getTitle()).isEqualTo("Test Track");
-        verify(trackRepository, times(1)).findAll();
+        verify(trackRepository, times(1)).findSummaries(any(), any());
+        verify(trackRepository, never()).findAll();
     }
 
     @Test
@@ -125,33 +165,195 @@ class TrackServiceTest {
     @Test
     void shouldUpdateTrack() {
         when(trackRepository.findById(1L)).thenReturn(Optional.of(track));
-        when(trackRepository.save(any(Track.class))).thenReturn(track);
+        when(trackRepository.saveAndFlush(any(Track.class))).thenReturn(track);
         when(trackMapper.toDTO(track)).thenReturn(trackDTO);
 
         TrackDTO result = trackService.updateTrack(1L, updateTrackDTO);
 
         assertThat(result).isNotNull();
         verify(trackRepository, times(1)).findById(1L);
-        verify(trackRepository, times(1)).save(track);
+        verify(trackRepository, times(1)).saveAndFlush(track);
+    }
+
+    @Test
+    void shouldForgetRunningLoadsOnceATrackChanges() {
+        trackService.onTrackChanged(TrackChangedEvent.deleted(5L));
+        trackService.onNotices(List.of(ChangeNotice.everything()));
+
+        verify(singleFlight).forget("getTrackById", 5L);
+        verify(singleFlight).forget("getTrackById");
+        verify(singleFlight, times(2)).forget("findTracks");
     }
 
     @Test
     void shouldDeleteTrack() {
-        when(trackRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(trackRepository).deleteById(1L);
+        when(trackRepository.softDeleteById(eq(1L), any())).thenReturn(1);
 
         trackService.deleteTrack(1L);
 
-        verify(trackRepository, times(1)).existsById(1L);
-        verify(trackRepository, times(1)).deleteById(1L);
+        verify(trackRepository, times(1)).softDeleteById(eq(1L), any());
+        verify(changeStamper).stampOnCommit(List.of(1L));
+        verify(trackRepository, never()).deleteById(anyLong());
     }
 
     @Test
     void shouldThrowExceptionWhenDeletingNonExistentTrack() {
-        when(trackRepository.existsById(anyLong())).thenReturn(false);
+        when(trackRepository.softDeleteById(eq(999L), any())).thenReturn(0);
 
         assertThatThrownBy(() -> trackService.deleteTrack(999L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Track not found with ID: 999");
     }
+
+    @Test
+    void shouldBulkDeleteOnlyLiveTracks() {
+        when(trackRepository.findIdsByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+        when(trackRepository.softDeleteByIdIn(eq(List.of(1L, 3L)), any())).thenReturn(2);
+
+        int deleted = trackService.deleteTracks(List.of(1L, 2L, 3L, 1L));
+
+        assertThat(deleted).isEqualTo(2);
+        verify(eventPublisher, times(2)).publishEvent(any(TrackChangedEvent.class));
+    }
+
+    @Test
+    void shouldDecodeAudioOffHeapWhenTheCacheAdmitsIt() {
+        TrackAudioView view = mock(TrackAudioView.class);
+        when(view.getAudioUrl()).thenReturn("data:audio/mpeg;base64,AAECAw==");
+        when(view.getVersion()).thenReturn(2L);
+        when(trackRepository.findAudioById(1L)).thenReturn(Optional.of(view));
+        when(audioCache.wouldAdmit(1L, 4)).thenReturn(true);
+
+        DecodedAudio audio = trackService.getTrackAudio(1L);
+
+        assertThat(audio.mediaType()).isEqualTo("audio/mpeg");
+        assertThat(audio.size()).isEqualTo(4);
+        assertThat(audio.version()).isEqualTo(2L);
+        assertThat(audio.data().isDirect()).isTrue();
+        verify(audioCache).put(1L, audio);
+    }
+
+    @Test
+    void shouldServeCachedAudioWithoutQuery() {
+        DecodedAudio cached = DecodedAudio.fromDataUrl("data:audio/mpeg;base64,AAECAw==", 0, true);
+        when(audioCache.get(1L)).thenReturn(cached);
+
+        assertThat(trackService.getTrackAudio(1L)).isSameAs(cached);
+        verify(trackRepository, never()).findAudioById(anyLong());
+    }
+
+    @Test
+    void shouldReportTrackWithoutEmbeddedAudio() {
+        TrackAudioView view = mock(TrackAudioView.class);
+        when(view.getAudioUrl()).thenReturn("http://example.com/audio.mp3");
+        when(trackRepository.findAudioById(1L)).thenReturn(Optional.of(view));
+
+        assertThatThrownBy(() -> trackService.getTrackAudio(1L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(audioCache, never()).put(anyLong(), any());
+    }
+
+    @Test
+    void shouldGetTrackDetailsByIdsInRequestedOrder() {
+        TrackDetailDTO cachedDetail = new TrackDetailDTO("http://example.com/cached.mp3");
+        cachedDetail.setId(2L);
+        when(trackCache.get(1L)).thenReturn(null);
+        when(trackCache.get(2L)).thenReturn(cachedDetail);
+        when(trackCache.get(3L)).thenReturn(null);
+        when(trackRepository.findAllById(any())).thenReturn(List.of(track));
+        when(trackMapper.toDetailDTO(track)).thenReturn(trackDetailDTO);
+
+        List<TrackDTO> result = trackService.getTracksByIds(List.of(2L, 3L, 1L, 2L), true);
+
+        assertThat(result).containsExactly(cachedDetail, trackDetailDTO, cachedDetail);
+        verify(trackRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void shouldRejectOversizedDetailBatch() {
+        List<Long> ids = LongStream.rangeClosed(1, TrackService.MAX_DETAIL_BATCH + 1).boxed().toList();
+
+        assertThatThrownBy(() -> trackService.getTracksByIds(ids, true))
+                .isInstanceOf(InvalidRequestException.class);
+        verify(trackRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void shouldGetTrackSummariesByIdsInRequestedOrder() {
+        TrackDTO other = new TrackDTO(2L, "Other Track", "Test Artist", "Pop", null,
+                null, 200, false, null, null);
+        when(trackRepository.findSummariesByIdIn(List.of(2L, 1L))).thenReturn(List.of(trackDTO, other));
+
+        List<TrackDTO> result = trackService.getTracksByIds(List.of(2L, 1L), false);
+
+        assertThat(result).extracting(TrackDTO::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void shouldGetSimilarTracksInIndexOrder() {
+        TrackDTO other = new TrackDTO(2L, "Other Track", "Test Artist", "Pop", null,
+                null, 200, false, null, null);
+        when(similarityIndex.findSimilar(1L, 5)).thenReturn(List.of(2L, 1L));
+        when(trackRepository.findSummariesByIdIn(List.of(2L, 1L))).thenReturn(List.of(trackDTO, other));
+
+        List<TrackDTO> result = trackService.getSimilarTracks(1L, 5);
+
+        assertThat(result).extracting(TrackDTO::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSimilarSourceNotIndexed() {
+        when(similarityIndex.findSimilar(999L, 5)).thenReturn(null);
+
+        assertThatThrownBy(() -> trackService.getSimilarTracks(999L, 5))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Track not found with ID: 999");
+    }
+
+    @Test
+    void shouldCountFavoriteTowardsTrending() {
+        track.setIsFavorite(false);
+        when(trackRepository.findById(1L)).thenReturn(Optional.of(track));
+        when(trackRepository.saveAndFlush(track)).thenReturn(track);
+        when(trackMapper.toDTO(track)).thenReturn(trackDTO);
+
+        trackService.toggleFavorite(1L);
+
+        assertThat(track.getIsFavorite()).isTrue();
+        verify(eventPublisher).publishEvent(new TrackFavoritedEvent(1L));
+        verify(trendingTracker, never()).recordFavorite(any());
+    }
+
+    @Test
+    void shouldNotCountUnfavoriteTowardsTrending() {
+        track.setIsFavorite(true);
+        when(trackRepository.findById(1L)).thenReturn(Optional.of(track));
+        when(trackRepository.saveAndFlush(track)).thenReturn(track);
+        when(trackMapper.toDTO(track)).thenReturn(trackDTO);
+
+        trackService.toggleFavorite(1L);
+
+        assertThat(track.getIsFavorite()).isFalse();
+        verify(eventPublisher, never()).publishEvent(any(TrackFavoritedEvent.class));
+    }
+
+    @Test
+    void shouldGetTrendingTracks() {
+        when(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).thenReturn(List.of(1L));
+        when(trackRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(trackDTO));
+
+        List<TrackDTO> result = trackService.getTrendingTracks("1h", 10);
+
+        assertThat(result).containsExactly(trackDTO);
+    }
+
+    @Test
+    void shouldRejectInvertedDurationRange() {
+        TrackQuery query = new TrackQuery();
+        query.setMinDuration(300);
+        query.setMaxDuration(60);
+
+        assertThatThrownBy(() -> trackService.findTracks(query))
+                .isInstanceOf(InvalidRequestException.class);
+    }
 }
@@ -0,0 +1,143 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.ImportProgressDTO;
+import com.recovery.spotibyeback21.entity.Track;
+import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import com.recovery.spotibyeback21.repository.TrackRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TrackTransferServiceTest {
+
+    @Autowired
+    private TrackTransferService trackTransferService;
+
+    @Autowired
+    private TrackRepository trackRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= 3; i++) {
+            Track track = new Track();
+            track.setTitle("Track " + i);
+            track.setArtist("Artist " + i);
+            track.setCategory("pop");
+            track.setAudioUrl("data:audio/mpeg;base64,AAAA" + i);
+            track.setDuration(100 + i);
+            track.setIsFavorite(i == 2);
+            trackRepository.save(track);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        trackRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRoundTripLibraryThroughNdjson() throws Exception {
+        byte[] exported = export(false);
+        trackRepository.deleteAll();
+
+        ImportProgressDTO progress = trackTransferService.importTracks(
+                new ByteArrayInputStream(exported), false, "round-trip", null);
+
+        assertThat(new String(exported, StandardCharsets.UTF_8).lines()).hasSize(3);
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getImported()).isEqualTo(3L);
+        assertThat(trackRepository.findAll())
+                .extracting(Track::getTitle, Track::getAudioUrl, Track::getIsFavorite)
+                .contains(tuple("Track 2", "data:audio/mpeg;base64,AAAA2", true));
+    }
+
+    @Test
+    void shouldRoundTripLibraryThroughZip() throws Exception {
+        byte[] exported = export(true);
+        trackRepository.deleteAll();
+
+        ImportProgressDTO progress = trackTransferService.importTracks(
+                new ByteArrayInputStream(exported), true, "zip", null);
+
+        assertThat(progress.getImported()).isEqualTo(3L);
+        assertThat(trackRepository.count()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldCountInvalidLinesAndResumeFromCheckpoint() throws Exception {
+        String body = "{\"title\":\"A\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}\n"
+                + "{\"title\":\"\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}\n"
+                + "{\"title\":\"C\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}\n"
+                + "{broken";
+        trackRepository.deleteAll();
+
+        ImportProgressDTO failed = trackTransferService.importTracks(stream(body), false, "resume", null);
+
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(failed.getLastCommittedLine()).isEqualTo(3L);
+        assertThat(failed.getImported()).isEqualTo(2L);
+        assertThat(failed.getFailed()).isEqualTo(1L);
+
+        String fixed = body.replace("{broken", "{\"title\":\"D\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}");
+        ImportProgressDTO resumed = trackTransferService.importTracks(stream(fixed), false, "resume", null);
+
+        assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(resumed.getImported()).isEqualTo(3L);
+        assertThat(trackRepository.findAll()).extracting(Track::getTitle).containsExactlyInAnyOrder("A", "C", "D");
+    }
+
+    @Test
+    void shouldResumeByRecordsWhateverTheLineBreaks() throws Exception {
+        String body = "{\"title\":\"A\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}\n"
+                + "\n"
+                + "{\"title\":\"B\",\n\"artist\":\"X\",\n\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}\n"
+                + "{broken";
+        trackRepository.deleteAll();
+
+        ImportProgressDTO failed = trackTransferService.importTracks(stream(body), false, "line-breaks", null);
+        assertThat(failed.getLastCommittedLine()).isEqualTo(2L);
+
+        String fixed = body.replace("{broken", "{\"title\":\"C\",\"artist\":\"X\",\"category\":\"pop\",\"audioUrl\":\"u\",\"duration\":1}");
+        ImportProgressDTO resumed = trackTransferService.importTracks(stream(fixed), false, "line-breaks", null);
+
+        assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(trackRepository.findAll()).extracting(Track::getTitle).containsExactlyInAnyOrder("A", "B", "C");
+    }
+
+    @Test
+    void shouldForgetFinishedImportsAfterTheTtl() throws Exception {
+        byte[] exported = export(false);
+        trackTransferService.importTracks(new ByteArrayInputStream(exported), false, "expiring", null);
+
+        trackTransferService.collectFinished(System.currentTimeMillis());
+        assertThat(trackTransferService.getImportProgress("expiring").getStatus()).isEqualTo("COMPLETED");
+
+        trackTransferService.collectFinished(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        assertThatThrownBy(() -> trackTransferService.getImportProgress("expiring"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private byte[] export(boolean zip) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trackTransferService.exportTracks(out, zip, 0);
+        return out.toByteArray();
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrendingTrackerTest {
+
+    private static final long HOUR = 60 * 60_000L;
+
+    private AtomicLong now;
+    private TrendingTracker trendingTracker;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000 * HOUR);
+        trendingTracker = new TrendingTracker(now::get);
+    }
+
+    @Test
+    void shouldRankByPlaysAndFavorites() {
+        trendingTracker.recordPlays(Map.of(1L, 3L, 2L, 4L));
+        trendingTracker.recordFavorite(1L);
+
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldCountAFavoriteOncePerDay() {
+        trendingTracker.recordPlays(Map.of(2L, 6L));
+        for (int i = 0; i < 3; i++) {
+            trendingTracker.recordFavorite(1L);
+        }
+
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).containsExactly(2L, 1L);
+
+        now.addAndGet(24 * HOUR);
+        trendingTracker.recordFavorite(1L);
+        assertThat(trendingTracker.metrics().get("recentFavorites")).isEqualTo(1);
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldExpireOldPlaysFromShortWindow() {
+        trendingTracker.recordPlays(Map.of(1L, 10L));
+        now.addAndGet(2 * HOUR);
+        trendingTracker.recordPlays(Map.of(2L, 1L));
+
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 10)).containsExactly(2L);
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_DAY, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldKeepHeavyHittersWithBoundedCounters() {
+        Map<Long, Long> plays = new HashMap<>();
+        for (long id = 1; id <= 2_000; id++) {
+            plays.put(id, 1L);
+        }
+        trendingTracker.recordPlays(Map.of(42_000L, 500L));
+        trendingTracker.recordPlays(plays);
+
+        assertThat(trendingTracker.top(TrendingTracker.Window.LAST_HOUR, 1)).containsExactly(42_000L);
+        assertThat((Integer) trendingTracker.metrics().get("1hCounters"))
+                .isLessThanOrEqualTo(TrendingTracker.COUNTERS_PER_BUCKET);
+    }
+
+    @Test
+    void shouldRejectUnknownWindow() {
+        assertThatThrownBy(() -> TrendingTracker.Window.fromLabel("7d"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+}
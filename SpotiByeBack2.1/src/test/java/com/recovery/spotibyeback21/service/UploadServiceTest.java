@@ -0,0 +1,201 @@
+package com.recovery.spotibyeback21.service;
+
+import com.recovery.spotibyeback21.dto.CreateTrackDTO;
+import com.recovery.spotibyeback21.dto.CreateUploadDTO;
+import com.recovery.spotibyeback21.dto.FinalizeUploadDTO;
+import com.recovery.spotibyeback21.dto.TrackDetailDTO;
+import com.recovery.spotibyeback21.dto.UploadStatusDTO;
+import com.recovery.spotibyeback21.exception.CapacityExceededException;
+import com.recovery.spotibyeback21.exception.ConflictException;
+import com.recovery.spotibyeback21.exception.InvalidRequestException;
+import com.recovery.spotibyeback21.exception.ResourceNotFoundException;
+import com.recovery.spotibyeback21.filter.UploadAdmissionFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private TrackService trackService;
+    private UploadAdmissionFilter uploadAdmissionFilter;
+    private UploadService uploadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        trackService = mock(TrackService.class);
+        uploadAdmissionFilter = mock(UploadAdmissionFilter.class);
+        when(uploadAdmissionFilter.reserve(anyLong())).thenReturn(4);
+        uploadService = new UploadService(trackService, uploadAdmissionFilter, directory, 1_000, 2, 60_000, now::get);
+        uploadService.init();
+    }
+
+    @Test
+    void shouldResumeAfterInterruptedChunk() throws IOException {
+        byte[] audio = bytes(300);
+        String id = uploadService.createUpload(new CreateUploadDTO(300L, "audio/mpeg")).getUploadId();
+
+        assertThatThrownBy(() -> uploadService.writeChunk(id, 0, failingAfter(Arrays.copyOf(audio, 120))))
+                .isInstanceOf(IOException.class);
+        long offset = uploadService.getUpload(id).getOffset();
+        assertThat(offset).isEqualTo(120);
+
+        long end = uploadService.writeChunk(id, offset, new ByteArrayInputStream(audio, 120, 180));
+
+        assertThat(end).isEqualTo(300);
+        assertThat(Files.readAllBytes(directory.resolve(id + ".upload"))).isEqualTo(audio);
+    }
+
+    @Test
+    void shouldRejectChunkAtWrongOffset() throws IOException {
+        String id = uploadService.createUpload(new CreateUploadDTO(10L, "audio/mpeg")).getUploadId();
+        uploadService.writeChunk(id, 0, new ByteArrayInputStream(bytes(4)));
+
+        assertThatThrownBy(() -> uploadService.writeChunk(id, 0, new ByteArrayInputStream(bytes(4))))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void shouldNotWritePastDeclaredLength() throws IOException {
+        String id = uploadService.createUpload(new CreateUploadDTO(10L, "audio/mpeg")).getUploadId();
+
+        assertThatThrownBy(() -> uploadService.writeChunk(id, 0, new ByteArrayInputStream(bytes(12))))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(Files.size(directory.resolve(id + ".upload"))).isEqualTo(10);
+    }
+
+    @Test
+    void shouldFinalizeCompleteUploadIntoTrack() throws IOException {
+        byte[] audio = bytes(50);
+        String id = uploadService.createUpload(new CreateUploadDTO(50L, "audio/ogg")).getUploadId();
+        uploadService.writeChunk(id, 0, new ByteArrayInputStream(audio));
+        AtomicReference<String> storedAudio = new AtomicReference<>();
+        when(trackService.createTrack(any())).thenAnswer(invocation -> {
+            CreateTrackDTO dto = invocation.getArgument(0);
+            storedAudio.set(dto.getAudioPayload().toDataUrl());
+            TrackDetailDTO created = new TrackDetailDTO();
+            created.setId(7L);
+            created.setTitle(dto.getTitle());
+            return created;
+        });
+
+        TrackDetailDTO track = uploadService.finalizeUpload(id,
+                new FinalizeUploadDTO("Title", "Artist", "Pop", null, null, 120));
+
+        assertThat(track.getId()).isEqualTo(7L);
+        // 50 bytes encode to 68 base64 characters after "data:audio/ogg;base64,"
+        verify(uploadAdmissionFilter).reserve(22 + 68);
+        verify(uploadAdmissionFilter).release(4);
+        assertThat(storedAudio.get()).isEqualTo("data:audio/ogg;base64," + Base64.getEncoder().encodeToString(audio));
+        assertThatThrownBy(() -> uploadService.getUpload(id)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void shouldKeepUploadWhenTrackCreationFails() throws IOException {
+        byte[] audio = bytes(50);
+        String id = uploadService.createUpload(new CreateUploadDTO(50L, "audio/ogg")).getUploadId();
+        uploadService.writeChunk(id, 0, new ByteArrayInputStream(audio));
+        TrackDetailDTO created = new TrackDetailDTO();
+        created.setId(7L);
+        when(trackService.createTrack(any()))
+                .thenAnswer(invocation -> {
+                    // The service closes the payload whatever the outcome
+                    ((CreateTrackDTO) invocation.getArgument(0)).getAudioPayload().close();
+                    throw new IllegalStateException("Connection refused");
+                })
+                .thenReturn(created);
+        FinalizeUploadDTO metadata = new FinalizeUploadDTO("Title", "Artist", "Pop", null, null, 120);
+
+        assertThatThrownBy(() -> uploadService.finalizeUpload(id, metadata)).isInstanceOf(IllegalStateException.class);
+        assertThat(uploadService.getUpload(id).getOffset()).isEqualTo(50);
+        assertThat(Files.readAllBytes(directory.resolve(id + ".upload"))).isEqualTo(audio);
+
+        assertThat(uploadService.finalizeUpload(id, metadata).getId()).isEqualTo(7L);
+        assertThat(Files.exists(directory.resolve(id + ".upload"))).isFalse();
+    }
+
+    @Test
+    void shouldRejectFinalizeWhileUploadBudgetIsExhausted() throws IOException {
+        String id = uploadService.createUpload(new CreateUploadDTO(50L, "audio/ogg")).getUploadId();
+        uploadService.writeChunk(id, 0, new ByteArrayInputStream(bytes(50)));
+        when(uploadAdmissionFilter.reserve(anyLong())).thenReturn(0);
+
+        assertThatThrownBy(() -> uploadService.finalizeUpload(id,
+                new FinalizeUploadDTO("Title", "Artist", "Pop", null, null, 120)))
+                .isInstanceOf(CapacityExceededException.class);
+        verify(trackService, never()).createTrack(any());
+        verify(uploadAdmissionFilter, never()).release(anyInt());
+        assertThat(uploadService.getUpload(id).getOffset()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldNotFinalizeIncompleteUpload() throws IOException {
+        String id = uploadService.createUpload(new CreateUploadDTO(50L, "audio/mpeg")).getUploadId();
+        uploadService.writeChunk(id, 0, new ByteArrayInputStream(bytes(10)));
+
+        assertThatThrownBy(() -> uploadService.finalizeUpload(id,
+                new FinalizeUploadDTO("Title", "Artist", "Pop", null, null, 120)))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void shouldCollectIdleUploads() throws IOException {
+        UploadStatusDTO idle = uploadService.createUpload(new CreateUploadDTO(10L, "audio/mpeg"));
+        now.addAndGet(30_000);
+        UploadStatusDTO active = uploadService.createUpload(new CreateUploadDTO(10L, "audio/mpeg"));
+        now.addAndGet(40_000);
+
+        uploadService.collectExpired();
+
+        assertThatThrownBy(() -> uploadService.getUpload(idle.getUploadId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(Files.exists(directory.resolve(idle.getUploadId() + ".upload"))).isFalse();
+        assertThat(uploadService.getUpload(active.getUploadId()).getOffset()).isZero();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    // Delivers the data, then fails like a dropped connection
+    private static InputStream failingAfter(byte[] data) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == data.length) {
+                    throw new IOException("Connection reset");
+                }
+                return data[position++] & 0xFF;
+            }
+        };
+    }
+}